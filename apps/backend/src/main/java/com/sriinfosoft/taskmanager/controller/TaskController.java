@@ -1,11 +1,18 @@
 package com.sriinfosoft.taskmanager.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sriinfosoft.taskmanager.model.ArchivedTask;
 import com.sriinfosoft.taskmanager.model.Task;
-import com.sriinfosoft.taskmanager.repository.TaskRepository;
+import com.sriinfosoft.taskmanager.model.TaskStats;
+import com.sriinfosoft.taskmanager.reminder.ReminderScheduler;
+import com.sriinfosoft.taskmanager.service.TaskReadCoalescer;
+import com.sriinfosoft.taskmanager.service.TaskService;
 import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.AccessDeniedException;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -23,7 +30,16 @@ import java.util.Optional;
 public class TaskController {
 
     @Autowired
-    private TaskRepository taskRepository;
+    private TaskService taskService;
+
+    @Autowired
+    private ReminderScheduler reminderScheduler;
+
+    @Autowired
+    private TaskReadCoalescer readCoalescer;
+
+    @Autowired
+    private ObjectMapper objectMapper;
 
     // ----------------- helpers -----------------
 
@@ -93,6 +109,17 @@ public class TaskController {
         return (name != null && !name.isBlank()) ? name : null;
     }
 
+    private static Long idField(Map<String, Object> body, String name) {
+        Object value = body.get(name);
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number n) {
+            return n.longValue();
+        }
+        throw new IllegalArgumentException(name + " must be a task id");
+    }
+
     // ----------------- endpoints -----------------
 
     @GetMapping
@@ -106,9 +133,14 @@ public class TaskController {
             }
 
             System.out.println("Fetching tasks for user: " + email);
-            List<Task> tasks = taskRepository.findByUserEmail(email);
-            System.out.println("Found " + tasks.size() + " tasks");
-            return ResponseEntity.ok(tasks);
+            // Concurrent identical reads (several tabs, refetch after each mutation)
+            // share one query and one serialized body
+            byte[] body = readCoalescer.read(email, "list", () -> {
+                List<Task> tasks = taskService.list(email);
+                System.out.println("Found " + tasks.size() + " tasks");
+                return objectMapper.writeValueAsBytes(tasks);
+            });
+            return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
 
         } catch (Exception e) {
             System.err.println("ERROR in getAllTasks: " + e.getMessage());
@@ -118,6 +150,64 @@ public class TaskController {
         }
     }
 
+    /**
+     * Cold tier: tasks archived after being completed for a while. The default
+     * GET /api/tasks only reads the hot tasks table.
+     */
+    @GetMapping("/archive")
+    public ResponseEntity<?> getArchivedTasks(@RequestParam(defaultValue = "0") int page,
+                                              @RequestParam(defaultValue = "50") int size) {
+        System.out.println("\n🗄️ === GET /api/tasks/archive called (page=" + page + ", size=" + size + ") ===");
+        try {
+            String email = getCurrentUserEmail();
+            if (email == null || email.isBlank()) {
+                System.err.println("ERROR in getArchivedTasks: unable to resolve email from principal");
+                return unauthenticated();
+            }
+
+            if (page < 0 || size < 1 || size > 200) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "page must be >= 0 and size between 1 and 200"));
+            }
+
+            List<ArchivedTask> tasks = taskService.listArchived(email, page, size);
+            System.out.println("Found " + tasks.size() + " archived tasks");
+            return ResponseEntity.ok(tasks);
+
+        } catch (Exception e) {
+            System.err.println("ERROR in getArchivedTasks: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Server error fetching archived tasks"));
+        }
+    }
+
+    @GetMapping("/stats")
+    public ResponseEntity<?> getStats() {
+        System.out.println("\n📊 === GET /api/tasks/stats called ===");
+        try {
+            String email = getCurrentUserEmail();
+            if (email == null || email.isBlank()) {
+                System.err.println("ERROR in getStats: unable to resolve email from principal");
+                return unauthenticated();
+            }
+
+            TaskStats stats = taskService.getStats(email);
+            System.out.println("Stats for " + email + ": total=" + stats.getTotalCount()
+                    + ", completed=" + stats.getCompletedCount());
+            return ResponseEntity.ok(Map.of(
+                    "total", stats.getTotalCount(),
+                    "completed", stats.getCompletedCount(),
+                    "pending", stats.getPendingCount()));
+
+        } catch (Exception e) {
+            System.err.println("ERROR in getStats: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Server error fetching task stats"));
+        }
+    }
+
     @PostMapping
     public ResponseEntity<?> createTask(@Valid @RequestBody Task task) {
         System.out.println("\n➕ === POST /api/tasks called ===");
@@ -135,7 +225,9 @@ public class TaskController {
             task.setCreatedAt(LocalDateTime.now());
             task.setUpdatedAt(LocalDateTime.now());
 
-            Task saved = taskRepository.save(task);
+            Task saved = taskService.create(task);
+            reminderScheduler.schedule(saved);
+            readCoalescer.fence(email);
             System.out.println("✅ Task created: id=" + saved.getId());
             return ResponseEntity.status(HttpStatus.CREATED).body(saved);
 
@@ -147,10 +239,16 @@ public class TaskController {
         }
     }
 
+    /**
+     * Partial update: null fields are left unchanged. Pass ?clearDueAt=true to
+     * remove the due date (and any pending reminder).
+     */
     @PutMapping("/{id}")
-    public ResponseEntity<?> updateTask(@PathVariable Long id, @RequestBody Task taskDetails) {
+    public ResponseEntity<?> updateTask(@PathVariable Long id, @RequestBody Task taskDetails,
+                                        @RequestParam(defaultValue = "false") boolean clearDueAt) {
         System.out.println("\n✏️ === PUT /api/tasks/" + id + " called ===");
-        System.out.println("Patch -> title: " + taskDetails.getTitle() + ", completed: " + taskDetails.getCompleted());
+        System.out.println("Patch -> title: " + taskDetails.getTitle() + ", completed: " + taskDetails.getCompleted()
+                + ", dueAt: " + taskDetails.getDueAt() + ", clearDueAt: " + clearDueAt);
 
         try {
             String email = getCurrentUserEmail();
@@ -159,36 +257,29 @@ public class TaskController {
                 return unauthenticated();
             }
 
-            Optional<Task> opt = taskRepository.findById(id);
-            if (opt.isEmpty()) {
+            if (clearDueAt && taskDetails.getDueAt() != null) {
+                return ResponseEntity.badRequest()
+                        .body(Map.of("error", "dueAt cannot be set together with clearDueAt"));
+            }
+
+            // Ownership is checked on the locked row inside the service
+            Optional<Task> updated = taskService.update(id, email, taskDetails, clearDueAt);
+            if (updated.isEmpty()) {
                 System.err.println("ERROR: task " + id + " not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("error", "Task not found"));
             }
 
-            Task task = opt.get();
-            System.out.println("Task owner: " + task.getUserEmail());
-
-            if (!email.equals(task.getUserEmail())) {
-                System.err.println("ERROR: user " + email + " tried to update task owned by " + task.getUserEmail());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("error", "Forbidden"));
-            }
-
-            if (taskDetails.getTitle() != null) {
-                System.out.println("Updating title to: " + taskDetails.getTitle());
-                task.setTitle(taskDetails.getTitle());
-            }
-            if (taskDetails.getCompleted() != null) {
-                System.out.println("Updating completed to: " + taskDetails.getCompleted());
-                task.setCompleted(taskDetails.getCompleted());
-            }
-
-            task.setUpdatedAt(LocalDateTime.now());
-            Task saved = taskRepository.save(task);
+            Task saved = updated.get();
+            reminderScheduler.schedule(saved);
+            readCoalescer.fence(email);
             System.out.println("✅ Task updated: id=" + saved.getId());
             return ResponseEntity.ok(saved);
 
+        } catch (AccessDeniedException e) {
+            System.err.println("ERROR: user tried to update another user's task: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Forbidden"));
         } catch (Exception e) {
             System.err.println("ERROR in updateTask: " + e.getMessage());
             e.printStackTrace();
@@ -197,37 +288,90 @@ public class TaskController {
         }
     }
 
-    @DeleteMapping("/{id}")
-    public ResponseEntity<?> deleteTask(@PathVariable Long id) {
-        System.out.println("\n🗑️ === DELETE /api/tasks/" + id + " called ===");
+    /**
+     * Body: {"afterId": <id or null>, "beforeId": <id or null>, "expectedPosition": <key, optional>}
+     * – the tasks the moved task should sit between, and the moved task's
+     * position as the client last saw it. Only the moved task's position changes.
+     */
+    @PutMapping("/{id}/move")
+    public ResponseEntity<?> moveTask(@PathVariable Long id, @RequestBody Map<String, Object> body) {
+        System.out.println("\n↕️ === PUT /api/tasks/" + id + "/move called ===");
 
         try {
             String email = getCurrentUserEmail();
             if (email == null || email.isBlank()) {
-                System.err.println("ERROR in deleteTask: unable to resolve email from principal");
+                System.err.println("ERROR in moveTask: unable to resolve email from principal");
                 return unauthenticated();
             }
 
-            Optional<Task> opt = taskRepository.findById(id);
+            Long afterId = idField(body, "afterId");
+            Long beforeId = idField(body, "beforeId");
+            Object expected = body.get("expectedPosition");
+            if (expected != null && !(expected instanceof String)) {
+                throw new IllegalArgumentException("expectedPosition must be a string");
+            }
+            String expectedPosition = (String) expected;
+            System.out.println("Move -> afterId: " + afterId + ", beforeId: " + beforeId
+                    + ", expectedPosition: " + expectedPosition);
+
+            // Ownership is checked on the locked row inside the service
+            Optional<Task> opt = taskService.move(id, email, afterId, beforeId, expectedPosition);
             if (opt.isEmpty()) {
                 System.err.println("ERROR: task " + id + " not found");
                 return ResponseEntity.status(HttpStatus.NOT_FOUND)
                         .body(Map.of("error", "Task not found"));
             }
 
-            Task task = opt.get();
-            System.out.println("Task owner: " + task.getUserEmail());
+            Task moved = opt.get();
+            readCoalescer.fence(email);
+            System.out.println("✅ Task moved: id=" + id + ", position=" + moved.getPosition());
+            return ResponseEntity.ok(moved);
+
+        } catch (AccessDeniedException e) {
+            System.err.println("ERROR: user tried to move another user's task: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Forbidden"));
+        } catch (IllegalArgumentException e) {
+            System.err.println("ERROR in moveTask: " + e.getMessage());
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (IllegalStateException e) {
+            System.err.println("CONFLICT in moveTask: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", e.getMessage() + " – refetch tasks and retry"));
+        } catch (Exception e) {
+            System.err.println("ERROR in moveTask: " + e.getMessage());
+            e.printStackTrace();
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR)
+                    .body(Map.of("error", "Server error moving task"));
+        }
+    }
+
+    @DeleteMapping("/{id}")
+    public ResponseEntity<?> deleteTask(@PathVariable Long id) {
+        System.out.println("\n🗑️ === DELETE /api/tasks/" + id + " called ===");
 
-            if (!email.equals(task.getUserEmail())) {
-                System.err.println("ERROR: user " + email + " tried to delete task owned by " + task.getUserEmail());
-                return ResponseEntity.status(HttpStatus.FORBIDDEN)
-                        .body(Map.of("error", "Forbidden"));
+        try {
+            String email = getCurrentUserEmail();
+            if (email == null || email.isBlank()) {
+                System.err.println("ERROR in deleteTask: unable to resolve email from principal");
+                return unauthenticated();
             }
 
-            taskRepository.delete(task);
+            // Ownership is checked on the locked row inside the service
+            if (!taskService.delete(id, email)) {
+                System.err.println("ERROR: task " + id + " not found");
+                return ResponseEntity.status(HttpStatus.NOT_FOUND)
+                        .body(Map.of("error", "Task not found"));
+            }
+            reminderScheduler.cancel(id);
+            readCoalescer.fence(email);
             System.out.println("✅ Task deleted: id=" + id);
             return ResponseEntity.noContent().build();
 
+        } catch (AccessDeniedException e) {
+            System.err.println("ERROR: user tried to delete another user's task: " + e.getMessage());
+            return ResponseEntity.status(HttpStatus.FORBIDDEN)
+                    .body(Map.of("error", "Forbidden"));
         } catch (Exception e) {
             System.err.println("ERROR in deleteTask: " + e.getMessage());
             e.printStackTrace();
@@ -0,0 +1,9 @@
+package com.sriinfosoft.taskmanager.journal;
+
+import java.util.List;
+
+/**
+ * Result of a journal read. {@code nextOffset} is where the following read
+ * should start, even when {@code records} is empty.
+ */
+public record JournalBatch(List<TaskChangeRecord> records, long nextOffset) {}
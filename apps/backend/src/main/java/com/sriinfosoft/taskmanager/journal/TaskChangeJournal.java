@@ -0,0 +1,571 @@
+package com.sriinfosoft.taskmanager.journal;
+
+import com.sriinfosoft.taskmanager.model.Task;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only, memory-mapped journal of task changes on local disk, so audit
+ * and analytics consumers can stream changes without querying the tasks table.
+ *
+ * Layout: fixed-size segment files named by their base offset. An offset is
+ * (segment base + position in segment), so it identifies a record globally and
+ * survives restarts. Each record is
+ *
+ *   int length | int crc32(body) | body
+ *   body = op:byte taskId:long version:long timestampMillis:long userEmail:str
+ *          fieldMask:byte [title:str] [completed:byte] [position:str] [dueAt:long]
+ *   str  = u16 length + UTF-8 bytes, dueAt = epoch seconds of the LocalDateTime
+ *
+ * The length is written last, and a zero length marks the unused tail of a
+ * segment. Appends only write into the mapping; a flusher thread forces it to
+ * disk every journal.flush-interval-ms, so one fsync covers every append since
+ * the last. Readers only see records that have been forced.
+ *
+ * With journal.sync-writes=true (the default) append() waits for the fsync
+ * covering its record, so concurrent appends share one fsync (group commit)
+ * and a returned offset is on disk. Callers journaling many rows at once use
+ * appendAll()/appendRemovals(), which write the whole batch and wait once.
+ * With sync-writes=false appends return as soon as the record is in the
+ * mapping; up to one flush interval of records can then be lost on a machine
+ * crash even though the request succeeded.
+ *
+ * Records are appended after the database transaction commits and carry the
+ * task row's version, so a task's records must be ordered by version rather
+ * than offset. The journal is not part of that transaction: a crash between
+ * the commit and the append loses the record, so consumers that need every
+ * change must reconcile against the tasks table.
+ */
+@Component
+public class TaskChangeJournal {
+
+    private static final String SUFFIX = ".seg";
+    private static final int HEADER_BYTES = 8;
+    private static final long SYNC_TIMEOUT_MILLIS = 1000;
+
+    private static final int HAS_TITLE = 1;
+    private static final int HAS_COMPLETED = 1 << 1;
+    private static final int HAS_POSITION = 1 << 2;
+    private static final int HAS_DUE_AT = 1 << 3;
+
+    @Value("${journal.enabled:true}")
+    private boolean enabled;
+
+    @Value("${journal.dir:./data/journal}")
+    private String dir;
+
+    // Offsets are located by segment size, so it is fixed for the life of a journal dir
+    @Value("${journal.segment-bytes:16777216}")
+    private int segmentBytes;
+
+    @Value("${journal.flush-interval-ms:20}")
+    private long flushIntervalMillis;
+
+    @Value("${journal.retention-hours:168}")
+    private long retentionHours;
+
+    @Value("${journal.sync-writes:true}")
+    private boolean syncWrites;
+
+    // All retained segments by base offset; readers look up here without locking
+    private final ConcurrentNavigableMap<Long, MappedByteBuffer> segments = new ConcurrentSkipListMap<>();
+
+    // Writer state, guarded by "this"
+    private long activeBase;
+    private MappedByteBuffer active;
+    private long writeOffset;
+
+    private volatile long durableOffset;
+    private final Object durableMonitor = new Object();
+
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            System.out.println("📒 Task change journal disabled");
+            return;
+        }
+
+        Path path = Paths.get(dir);
+        Files.createDirectories(path);
+        try (Stream<Path> files = Files.list(path)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).toList()) {
+                // Segments are preallocated, so the file size is the size they were written with
+                long size = Files.size(file);
+                if (size != segmentBytes) {
+                    throw new IllegalStateException("Journal segment " + file + " is " + size
+                            + " bytes but journal.segment-bytes is " + segmentBytes
+                            + "; restore the original setting or move the journal dir aside");
+                }
+                segments.put(baseOf(file), map(file));
+            }
+        }
+
+        if (segments.isEmpty()) {
+            activeBase = 0;
+            active = map(segmentPath(0));
+            segments.put(0L, active);
+            writeOffset = 0;
+        } else {
+            Map.Entry<Long, MappedByteBuffer> last = segments.lastEntry();
+            activeBase = last.getKey();
+            active = last.getValue();
+            writeOffset = activeBase + recover(active);
+        }
+        durableOffset = writeOffset;
+
+        flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "journal-flusher");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flush, flushIntervalMillis, flushIntervalMillis, TimeUnit.MILLISECONDS);
+        flusher.scheduleWithFixedDelay(this::applyRetention, 1, 60, TimeUnit.MINUTES);
+
+        System.out.println("📒 Task change journal at " + path.toAbsolutePath() + ": "
+                + segments.size() + " segments, offsets " + firstOffset() + ".." + writeOffset);
+    }
+
+    @PreDestroy
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdown();
+            flush();
+        }
+    }
+
+    // ----------------- writing -----------------
+
+    /** Records a change carrying the task's current fields and version. Never throws. */
+    public long append(TaskChangeOp op, Task task) {
+        long version = task.getVersion() != null ? task.getVersion() : 0;
+        return append(op, task.getId(), version, task.getUserEmail(), task);
+    }
+
+    /**
+     * Records a DELETE or ARCHIVE, which carry no fields. {@code version} should
+     * be one past the removed row's, so it supersedes every earlier record.
+     * Never throws.
+     */
+    public long appendRemoval(TaskChangeOp op, Long taskId, long version, String userEmail) {
+        return append(op, taskId, version, userEmail, null);
+    }
+
+    /**
+     * Records the same change for many tasks, as {@link #append(TaskChangeOp, Task)}
+     * would one by one, but with sync-writes waits for a single fsync covering
+     * all of them instead of one per record. Returns how many records were
+     * written (and, with sync-writes, reached disk). Never throws.
+     */
+    public int appendAll(TaskChangeOp op, List<Task> tasks) {
+        return appendBatch(op, tasks, false);
+    }
+
+    /**
+     * Batch form of {@link #appendRemoval}: each record's version is one past
+     * the removed row's. Returns how many records were written (and, with
+     * sync-writes, reached disk). Never throws.
+     */
+    public int appendRemovals(TaskChangeOp op, List<Task> removed) {
+        return appendBatch(op, removed, true);
+    }
+
+    /**
+     * Returns the record's offset, or -1 if the journal is disabled, the write
+     * failed, or (with sync-writes) it was not on disk within a second. A
+     * journal problem must never fail the user's request.
+     */
+    private long append(TaskChangeOp op, Long taskId, long version, String userEmail, Task fields) {
+        if (!enabled) {
+            return -1;
+        }
+        try {
+            byte[] body = encode(op, taskId, version, userEmail, fields);
+            long offset = write(body);
+            if (syncWrites && !awaitDurable(offset + HEADER_BYTES + body.length, SYNC_TIMEOUT_MILLIS)) {
+                // Still in the mapping and will be flushed later, but not yet durable
+                System.err.println("ERROR journal " + op + " for task " + taskId + " at offset " + offset
+                        + " not on disk after " + SYNC_TIMEOUT_MILLIS + "ms");
+                return -1;
+            }
+            return offset;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted waiting for journal " + op + " for task " + taskId + " to reach disk");
+            return -1;
+        } catch (Exception e) {
+            System.err.println("ERROR appending " + op + " for task " + taskId + " to journal: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private int appendBatch(TaskChangeOp op, List<Task> tasks, boolean removal) {
+        if (!enabled || tasks.isEmpty()) {
+            return 0;
+        }
+        int written = 0;
+        long end = -1;
+        for (Task task : tasks) {
+            try {
+                long version = (task.getVersion() != null ? task.getVersion() : 0) + (removal ? 1 : 0);
+                byte[] body = encode(op, task.getId(), version, task.getUserEmail(), removal ? null : task);
+                end = write(body) + HEADER_BYTES + body.length;
+                written++;
+            } catch (Exception e) {
+                // Skip just this record; the rest of the batch is still worth journaling
+                System.err.println("ERROR appending " + op + " for task " + task.getId() + " to journal: " + e.getMessage());
+            }
+        }
+        if (!syncWrites || written == 0) {
+            return written;
+        }
+
+        try {
+            // Offsets only grow, so the last record's end covers every earlier one
+            if (!awaitDurable(end, SYNC_TIMEOUT_MILLIS)) {
+                System.err.println("ERROR journal batch of " + written + " " + op + " records ending at offset "
+                        + end + " not on disk after " + SYNC_TIMEOUT_MILLIS + "ms");
+                return 0;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Interrupted waiting for journal batch of " + written + " " + op + " records to reach disk");
+            return 0;
+        }
+        return written;
+    }
+
+    private synchronized long write(byte[] body) throws IOException {
+        int size = HEADER_BYTES + body.length;
+        if (size > segmentBytes) {
+            throw new IllegalArgumentException("Record of " + size + " bytes exceeds segment size");
+        }
+
+        int pos = (int) (writeOffset - activeBase);
+        if (pos + size > segmentBytes) {
+            roll();
+            pos = 0;
+        }
+
+        active.put(pos + HEADER_BYTES, body);
+        active.putInt(pos + 4, crc(body));
+        active.putInt(pos, body.length); // publish last
+
+        long offset = activeBase + pos;
+        writeOffset = offset + size;
+        return offset;
+    }
+
+    // Caller holds the lock. The rest of the old segment stays zero, which
+    // readers treat as "continue at the next segment".
+    private void roll() throws IOException {
+        active.force();
+        activeBase += segmentBytes;
+        active = map(segmentPath(activeBase));
+        segments.put(activeBase, active);
+        writeOffset = activeBase;
+        System.out.println("📒 Journal rolled to segment " + activeBase);
+    }
+
+    private void flush() {
+        try {
+            long target;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                target = writeOffset;
+                buffer = active;
+            }
+            if (target == durableOffset) {
+                return;
+            }
+
+            // Segments before the active one were forced when they rolled
+            buffer.force();
+            durableOffset = target;
+            synchronized (durableMonitor) {
+                durableMonitor.notifyAll();
+            }
+        } catch (Exception e) {
+            System.err.println("ERROR flushing journal: " + e.getMessage());
+        }
+    }
+
+    /** Blocks until everything before {@code offset} is on disk, or the timeout passes. */
+    public boolean awaitDurable(long offset, long timeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        synchronized (durableMonitor) {
+            while (durableOffset < offset) {
+                long remaining = deadline - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    return false;
+                }
+                durableMonitor.wait(remaining);
+            }
+        }
+        return true;
+    }
+
+    private void applyRetention() {
+        Instant cutoff = Instant.now().minus(Duration.ofHours(retentionHours));
+        for (Long base : segments.headMap(activeSegmentBase()).keySet()) {
+            Path file = segmentPath(base);
+            try {
+                if (Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    // Readers still holding the mapping keep working; the space is
+                    // freed once it is garbage collected.
+                    segments.remove(base);
+                    Files.deleteIfExists(file);
+                    System.out.println("📒 Journal retention removed segment " + base);
+                }
+            } catch (IOException e) {
+                System.err.println("ERROR applying journal retention to " + file + ": " + e.getMessage());
+            }
+        }
+    }
+
+    private synchronized long activeSegmentBase() {
+        return activeBase;
+    }
+
+    // ----------------- reading -----------------
+
+    /** Oldest offset still retained. Reads from before it start here instead. */
+    public long firstOffset() {
+        return segments.isEmpty() ? 0 : segments.firstKey();
+    }
+
+    /** Offset just past the last record that is on disk and visible to readers. */
+    public long durableOffset() {
+        return durableOffset;
+    }
+
+    /**
+     * Reads up to {@code maxRecords} durable records starting at {@code fromOffset},
+     * which must be 0, a {@code nextOffset} returned earlier, or {@link #firstOffset()}.
+     * Safe to call from any number of threads while appends continue; poll with
+     * the returned nextOffset to tail the journal.
+     */
+    public JournalBatch read(long fromOffset, int maxRecords) {
+        List<TaskChangeRecord> records = new ArrayList<>();
+        long offset = Math.max(fromOffset, firstOffset());
+        long end = durableOffset;
+
+        while (records.size() < maxRecords && offset < end) {
+            long base = offset - Math.floorMod(offset, (long) segmentBytes);
+            MappedByteBuffer segment = segments.get(base);
+            if (segment == null) {
+                // Removed by retention while we were reading; skip to the next one
+                offset = base + segmentBytes;
+                continue;
+            }
+
+            int pos = (int) (offset - base);
+            int length = pos + HEADER_BYTES <= segmentBytes ? segment.getInt(pos) : 0;
+            if (length <= 0) {
+                offset = base + segmentBytes; // unused tail of a rolled segment
+                continue;
+            }
+
+            byte[] body = length <= segmentBytes - pos - HEADER_BYTES ? new byte[length] : null;
+            if (body != null) {
+                segment.get(pos + HEADER_BYTES, body);
+            }
+            if (body == null || crc(body) != segment.getInt(pos + 4)) {
+                // Durable bytes changed underneath us (disk or file corruption): the
+                // rest of this segment can't be framed, so skip to the next one
+                System.err.println("⚠️ Journal: corrupt record at offset " + offset + ", skipping rest of segment " + base);
+                offset = base + segmentBytes;
+                continue;
+            }
+            long next = offset + HEADER_BYTES + length;
+            records.add(decode(offset, next, body));
+            offset = next;
+        }
+        return new JournalBatch(records, offset);
+    }
+
+    // ----------------- encoding -----------------
+
+    private static byte[] encode(TaskChangeOp op, Long taskId, long version, String userEmail, Task fields) {
+        byte[] email = utf8(userEmail);
+        byte[] title = null;
+        byte[] position = null;
+        int mask = 0;
+        int size = 1 + 8 + 8 + 8 + 2 + email.length + 1;
+
+        if (fields != null) {
+            if (fields.getTitle() != null) {
+                title = utf8(fields.getTitle());
+                mask |= HAS_TITLE;
+                size += 2 + title.length;
+            }
+            if (fields.getCompleted() != null) {
+                mask |= HAS_COMPLETED;
+                size += 1;
+            }
+            if (fields.getPosition() != null) {
+                position = utf8(fields.getPosition());
+                mask |= HAS_POSITION;
+                size += 2 + position.length;
+            }
+            if (fields.getDueAt() != null) {
+                mask |= HAS_DUE_AT;
+                size += 8;
+            }
+        }
+
+        ByteBuffer buf = ByteBuffer.allocate(size);
+        buf.put(op.code());
+        buf.putLong(taskId);
+        buf.putLong(version);
+        buf.putLong(System.currentTimeMillis());
+        putString(buf, email);
+        buf.put((byte) mask);
+        if (title != null) {
+            putString(buf, title);
+        }
+        if ((mask & HAS_COMPLETED) != 0) {
+            buf.put((byte) (fields.getCompleted() ? 1 : 0));
+        }
+        if (position != null) {
+            putString(buf, position);
+        }
+        if ((mask & HAS_DUE_AT) != 0) {
+            buf.putLong(fields.getDueAt().toEpochSecond(ZoneOffset.UTC));
+        }
+        return buf.array();
+    }
+
+    private static TaskChangeRecord decode(long offset, long nextOffset, byte[] body) {
+        ByteBuffer buf = ByteBuffer.wrap(body);
+        TaskChangeOp op = TaskChangeOp.fromCode(buf.get());
+        long taskId = buf.getLong();
+        long version = buf.getLong();
+        long timestamp = buf.getLong();
+        String email = getString(buf);
+        int mask = buf.get();
+
+        String title = (mask & HAS_TITLE) != 0 ? getString(buf) : null;
+        Boolean completed = (mask & HAS_COMPLETED) != 0 ? buf.get() != 0 : null;
+        String position = (mask & HAS_POSITION) != 0 ? getString(buf) : null;
+        LocalDateTime dueAt = (mask & HAS_DUE_AT) != 0
+                ? LocalDateTime.ofEpochSecond(buf.getLong(), 0, ZoneOffset.UTC)
+                : null;
+
+        return new TaskChangeRecord(offset, nextOffset, op, taskId, version, email, timestamp,
+                title, completed, position, dueAt);
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("String of " + bytes.length + " bytes is too long for the journal");
+        }
+        return bytes;
+    }
+
+    private static void putString(ByteBuffer buf, byte[] bytes) {
+        buf.putShort((short) bytes.length);
+        buf.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buf) {
+        byte[] bytes = new byte[Short.toUnsignedInt(buf.getShort())];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // ----------------- files -----------------
+
+    /**
+     * Finds the end of the last segment after a restart: the first record whose
+     * length is zero, runs past the segment, or fails its CRC. Everything from
+     * there to the end of the segment is zeroed: a torn record can leave bytes
+     * past its own (possibly garbage) length, and once new appends land over
+     * the start of it those could otherwise be framed as records.
+     */
+    private int recover(MappedByteBuffer segment) {
+        int pos = 0;
+        while (pos + HEADER_BYTES <= segmentBytes) {
+            int length = segment.getInt(pos);
+            if (length <= 0 || pos + HEADER_BYTES + length > segmentBytes) {
+                break;
+            }
+            byte[] body = new byte[length];
+            segment.get(pos + HEADER_BYTES, body);
+            if (crc(body) != segment.getInt(pos + 4)) {
+                break;
+            }
+            pos += HEADER_BYTES + length;
+        }
+
+        int dirty = pos;
+        while (dirty < segmentBytes && segment.get(dirty) == 0) {
+            dirty++;
+        }
+        if (dirty < segmentBytes) {
+            System.err.println("⚠️ Journal: discarding torn data after segment position " + pos);
+            byte[] zeros = new byte[64 * 1024];
+            for (int at = pos; at < segmentBytes; at += zeros.length) {
+                segment.put(at, zeros, 0, Math.min(zeros.length, segmentBytes - at));
+            }
+            segment.force();
+        }
+        return pos;
+    }
+
+    private static int crc(byte[] body) {
+        CRC32 crc = new CRC32();
+        crc.update(body);
+        return (int) crc.getValue();
+    }
+
+    private MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // Mapping past the end grows the file, so every segment is preallocated and zero-filled
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        }
+    }
+
+    private Path segmentPath(long base) {
+        return Paths.get(dir, String.format("%020d%s", base, SUFFIX));
+    }
+
+    private static long baseOf(Path file) {
+        String name = file.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(0, name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            throw new UncheckedIOException(new IOException("Unexpected file in journal dir: " + file));
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.sriinfosoft.taskmanager.journal;
+
+/**
+ * Kind of change recorded in the journal. The code is what is written to disk,
+ * so existing values must never be renumbered.
+ */
+public enum TaskChangeOp {
+    CREATE(1),
+    UPDATE(2),
+    DELETE(3),
+    MOVE(4),
+    ARCHIVE(5);
+
+    private final byte code;
+
+    TaskChangeOp(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte code() {
+        return code;
+    }
+
+    public static TaskChangeOp fromCode(byte code) {
+        for (TaskChangeOp op : values()) {
+            if (op.code == code) {
+                return op;
+            }
+        }
+        throw new IllegalArgumentException("Unknown journal op code: " + code);
+    }
+}
@@ -0,0 +1,28 @@
+package com.sriinfosoft.taskmanager.journal;
+
+import java.time.LocalDateTime;
+
+/**
+ * One journal entry as returned by {@link TaskChangeJournal#read}.
+ *
+ * {@code offset} is where the record starts; pass {@code nextOffset} to the next
+ * read to continue after it. Task fields are only present for CREATE, UPDATE
+ * and MOVE; for DELETE and ARCHIVE they are null.
+ *
+ * {@code version} is the task row's version after the change (one past it for
+ * DELETE and ARCHIVE). Records are appended after their transaction commits, so
+ * two changes to the same task can reach the journal in the opposite order;
+ * keep the record with the highest version per task and drop older ones.
+ */
+public record TaskChangeRecord(
+        long offset,
+        long nextOffset,
+        TaskChangeOp op,
+        long taskId,
+        long version,
+        String userEmail,
+        long timestampMillis,
+        String title,
+        Boolean completed,
+        String position,
+        LocalDateTime dueAt) {}
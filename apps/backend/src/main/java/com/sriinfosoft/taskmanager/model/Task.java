@@ -1,11 +1,18 @@
 package com.sriinfosoft.taskmanager.model;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
 import jakarta.persistence.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "tasks")
+@Table(name = "tasks", indexes = {
+    @Index(name = "idx_tasks_user_position", columnList = "user_email, position"),
+    @Index(name = "idx_tasks_reminder_pending", columnList = "reminder_sent_at, completed, due_at"),
+    @Index(name = "idx_tasks_completed_at", columnList = "completed_at")
+})
 public class Task {
+    public static final int POSITION_LENGTH = 64;
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -19,12 +26,35 @@ public class Task {
     @Column(name = "user_email", nullable = false)
     private String userEmail;
     
+    // Lexicographic rank key (see RankKeys); lists are ordered by (position, id)
+    @Column(name = "position", length = POSITION_LENGTH)
+    private String position;
+    
+    @Column(name = "due_at")
+    private LocalDateTime dueAt;
+    
+    // Set once the due-date reminder has been delivered; cleared when dueAt changes
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "reminder_sent_at")
+    private LocalDateTime reminderSentAt;
+    
+    // When the task was last marked completed; drives archival (see TaskArchiver)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+    
     @Column(name = "created_at")
     private LocalDateTime createdAt = LocalDateTime.now();
     
     @Column(name = "updated_at")
     private LocalDateTime updatedAt = LocalDateTime.now();
     
+    // Bumped by Hibernate on every update; orders a task's journal records
+    @Version
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "version", nullable = false, columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+    
     // Constructors
     public Task() {}
     
@@ -66,6 +96,38 @@ public class Task {
         this.userEmail = userEmail; 
     }
     
+    public String getPosition() { 
+        return position; 
+    }
+    
+    public void setPosition(String position) { 
+        this.position = position; 
+    }
+    
+    public LocalDateTime getDueAt() { 
+        return dueAt; 
+    }
+    
+    public void setDueAt(LocalDateTime dueAt) { 
+        this.dueAt = dueAt; 
+    }
+    
+    public LocalDateTime getReminderSentAt() { 
+        return reminderSentAt; 
+    }
+    
+    public void setReminderSentAt(LocalDateTime reminderSentAt) { 
+        this.reminderSentAt = reminderSentAt; 
+    }
+    
+    public LocalDateTime getCompletedAt() { 
+        return completedAt; 
+    }
+    
+    public void setCompletedAt(LocalDateTime completedAt) { 
+        this.completedAt = completedAt; 
+    }
+    
     public LocalDateTime getCreatedAt() { 
         return createdAt; 
     }
@@ -81,4 +143,12 @@ public class Task {
     public void setUpdatedAt(LocalDateTime updatedAt) { 
         this.updatedAt = updatedAt; 
     }
+    
+    public Long getVersion() { 
+        return version; 
+    }
+    
+    public void setVersion(Long version) { 
+        this.version = version; 
+    }
 }
\ No newline at end of file
@@ -0,0 +1,121 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * Hierarchical timing wheel (Varghese &amp; Lauck) with 64 slots per level.
+ *
+ * Level 0 slots are one tick wide, level 1 slots 64 ticks, level 2 slots 4096
+ * ticks and so on. An entry lives on the level of the highest 6-bit group in
+ * which its deadline differs from the current tick, and cascades one level down
+ * each time the wheel below it wraps. Adding and expiring an entry are O(1);
+ * an entry is moved at most once per level.
+ *
+ * Not thread-safe: one thread owns the wheel (see ReminderScheduler).
+ */
+public final class HierarchicalTimingWheel<T> {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final long SLOT_MASK = SLOTS - 1;
+
+    private final long tickMillis;
+    private final int levels;
+    private final ArrayDeque<Entry<T>>[][] slots;
+
+    private long currentTick;
+    private int size;
+
+    @SuppressWarnings("unchecked")
+    public HierarchicalTimingWheel(long tickMillis, int levels, long startMillis) {
+        if (tickMillis <= 0 || levels < 1 || levels * SLOT_BITS >= 63) {
+            throw new IllegalArgumentException("tickMillis=" + tickMillis + ", levels=" + levels);
+        }
+        this.tickMillis = tickMillis;
+        this.levels = levels;
+        this.slots = new ArrayDeque[levels][SLOTS];
+        this.currentTick = startMillis / tickMillis;
+    }
+
+    /** How far ahead of now a deadline may be and still fit in the wheel. */
+    public long spanMillis() {
+        return tickMillis << (SLOT_BITS * levels);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Schedules {@code item} to expire at {@code deadlineMillis}; deadlines in the
+     * past expire on the next tick. Returns false if the deadline is beyond
+     * {@link #spanMillis()} – the caller should retry once it is nearer.
+     */
+    public boolean add(long deadlineMillis, T item) {
+        long ticks = Math.max(ceilDiv(deadlineMillis, tickMillis), currentTick + 1);
+        if (ticks - currentTick >= (1L << (SLOT_BITS * levels))) {
+            return false;
+        }
+        place(new Entry<>(ticks, item));
+        size++;
+        return true;
+    }
+
+    /**
+     * Advances the wheel to {@code nowMillis}, handing every expired item to
+     * {@code expired} in deadline order. The callback may call {@link #add}.
+     */
+    public void advance(long nowMillis, Consumer<T> expired) {
+        long target = nowMillis / tickMillis;
+        while (currentTick < target) {
+            currentTick++;
+
+            // Cascade from the top down so entries dropped into a lower level
+            // are in place before that level's own slot is drained.
+            for (int level = levels - 1; level >= 1; level--) {
+                int shift = level * SLOT_BITS;
+                if ((currentTick & ((1L << shift) - 1)) == 0) {
+                    cascade(level, (int) ((currentTick >>> shift) & SLOT_MASK));
+                }
+            }
+
+            ArrayDeque<Entry<T>> due = slots[0][(int) (currentTick & SLOT_MASK)];
+            while (due != null && !due.isEmpty()) {
+                size--;
+                expired.accept(due.pollFirst().item);
+            }
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        ArrayDeque<Entry<T>> bucket = slots[level][slot];
+        if (bucket == null) {
+            return;
+        }
+        // Top-level entries more than one rotation out land back in this same
+        // slot, so only re-place what was there when we started.
+        for (int n = bucket.size(); n > 0; n--) {
+            place(bucket.pollFirst());
+        }
+    }
+
+    private void place(Entry<T> entry) {
+        long diff = entry.ticks ^ currentTick;
+        int level = diff == 0 ? 0 : Math.min((63 - Long.numberOfLeadingZeros(diff)) / SLOT_BITS, levels - 1);
+        int slot = (int) ((entry.ticks >>> (level * SLOT_BITS)) & SLOT_MASK);
+
+        ArrayDeque<Entry<T>> bucket = slots[level][slot];
+        if (bucket == null) {
+            bucket = new ArrayDeque<>();
+            slots[level][slot] = bucket;
+        }
+        bucket.addLast(entry);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+
+    private record Entry<T>(long ticks, T item) {}
+}
@@ -0,0 +1,15 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConditionalOnProperty(name = "reminders.sink", havingValue = "log", matchIfMissing = true)
+public class LoggingReminderSink implements ReminderSink {
+
+    @Override
+    public void deliver(Reminder reminder) {
+        System.out.println("⏰ Reminder: task " + reminder.taskId() + " \"" + reminder.title()
+                + "\" for " + reminder.userEmail() + " is due at " + reminder.dueAt());
+    }
+}
@@ -0,0 +1,8 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import java.time.LocalDateTime;
+
+/**
+ * A due-date reminder for one task, as handed to a {@link ReminderSink}.
+ */
+public record Reminder(Long taskId, String userEmail, String title, LocalDateTime dueAt) {}
@@ -0,0 +1,289 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import com.sriinfosoft.taskmanager.model.Task;
+import com.sriinfosoft.taskmanager.repository.TaskRepository;
+import com.sriinfosoft.taskmanager.service.TaskReadCoalescer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fires due-date reminders from an in-process timing wheel.
+ *
+ * Only reminders due within reminders.horizon-ms are held in memory. A refill
+ * runs every reminders.refill-interval-ms and loads the next window with a
+ * range query on (reminder_sent_at, completed, due_at), which also picks up
+ * anything left unsent by a previous run. Reminders are marked sent only after the sink
+ * accepts them, so delivery is at-least-once across restarts.
+ *
+ * The wheel and its bookkeeping belong to a single "reminder-wheel" thread.
+ * Request threads only append to a lock-free inbox via {@link #schedule} and
+ * {@link #cancel}; the wheel thread drains it on every tick.
+ *
+ * The wheel thread never blocks on a sink or the DB row locks: fired reminders
+ * go to a "reminder-delivery" pool, and delivered ones are marked sent in
+ * batches by a "reminder-marker" thread every reminders.mark-interval-ms. Both
+ * report back through a second lock-free queue, and until they do the
+ * reminder stays claimed so refills and edits can't fire it again.
+ */
+@Component
+public class ReminderScheduler {
+
+    private static final ZoneId ZONE = ZoneId.systemDefault();
+
+    private final TaskRepository taskRepository;
+    private final ReminderSink sink;
+    private final TaskReadCoalescer readCoalescer;
+
+    @Value("${reminders.tick-ms:1000}")
+    private long tickMillis;
+
+    @Value("${reminders.horizon-ms:600000}")
+    private long horizonMillis;
+
+    @Value("${reminders.refill-interval-ms:60000}")
+    private long refillIntervalMillis;
+
+    @Value("${reminders.refill-batch-size:5000}")
+    private int refillBatchSize;
+
+    @Value("${reminders.retry-delay-ms:30000}")
+    private long retryDelayMillis;
+
+    @Value("${reminders.delivery-threads:4}")
+    private int deliveryThreads;
+
+    @Value("${reminders.mark-interval-ms:1000}")
+    private long markIntervalMillis;
+
+    private final ConcurrentLinkedQueue<Command> inbox = new ConcurrentLinkedQueue<>();
+    private final ConcurrentLinkedQueue<Reminder> delivered = new ConcurrentLinkedQueue<>(); // awaiting a sent-mark
+    private final ConcurrentLinkedQueue<Outcome> outcomes = new ConcurrentLinkedQueue<>();   // back to the wheel thread
+
+    private ExecutorService deliveryExecutor;
+    private ScheduledExecutorService markExecutor;
+
+    // --- owned by the wheel thread ---
+    private ScheduledExecutorService executor;
+    private HierarchicalTimingWheel<Reminder> wheel;
+    private final Map<Long, LocalDateTime> scheduled = new HashMap<>(); // taskId -> dueAt currently in the wheel
+    private final Map<Long, LocalDateTime> inDelivery = new HashMap<>(); // taskId -> dueAt fired, not yet settled
+    private long loadedUntil; // every unsent reminder due before this is in the wheel
+
+    public ReminderScheduler(TaskRepository taskRepository, ReminderSink sink, TaskReadCoalescer readCoalescer) {
+        this.taskRepository = taskRepository;
+        this.sink = sink;
+        this.readCoalescer = readCoalescer;
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel = new HierarchicalTimingWheel<>(tickMillis, 3, System.currentTimeMillis());
+        if (horizonMillis >= wheel.spanMillis()) {
+            throw new IllegalStateException("reminders.horizon-ms must be below " + wheel.spanMillis());
+        }
+
+        executor = Executors.newSingleThreadScheduledExecutor(daemon("reminder-wheel"));
+        deliveryExecutor = Executors.newFixedThreadPool(deliveryThreads, daemon("reminder-delivery"));
+        markExecutor = Executors.newSingleThreadScheduledExecutor(daemon("reminder-marker"));
+
+        executor.scheduleWithFixedDelay(this::refill, 0, refillIntervalMillis, TimeUnit.MILLISECONDS);
+        executor.scheduleAtFixedRate(this::tick, tickMillis, tickMillis, TimeUnit.MILLISECONDS);
+        markExecutor.scheduleWithFixedDelay(this::markSent, markIntervalMillis, markIntervalMillis,
+                TimeUnit.MILLISECONDS);
+        System.out.println("⏰ Reminder wheel started: tick=" + tickMillis + "ms, horizon=" + horizonMillis + "ms");
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+        deliveryExecutor.shutdownNow();
+        markExecutor.shutdownNow();
+    }
+
+    // ----------------- request threads -----------------
+
+    /**
+     * Call after a task's create/update has committed. Reschedules, or cancels
+     * if the task has no due date, is completed, or was already reminded.
+     */
+    public void schedule(Task task) {
+        if (task.getDueAt() == null || Boolean.TRUE.equals(task.getCompleted()) || task.getReminderSentAt() != null) {
+            cancel(task.getId());
+            return;
+        }
+        inbox.offer(new Command(task.getId(),
+                new Reminder(task.getId(), task.getUserEmail(), task.getTitle(), task.getDueAt())));
+    }
+
+    /** Call after a task's delete has committed. */
+    public void cancel(Long taskId) {
+        inbox.offer(new Command(taskId, null));
+    }
+
+    // ----------------- wheel thread -----------------
+
+    private void tick() {
+        try {
+            drainInbox();
+            drainOutcomes();
+
+            wheel.advance(System.currentTimeMillis(), reminder -> {
+                // Claim the entry: stale if the task was rescheduled or cancelled
+                // after it was added, and no other entry can fire for it again
+                if (scheduled.remove(reminder.taskId(), reminder.dueAt())) {
+                    inDelivery.put(reminder.taskId(), reminder.dueAt());
+                    deliveryExecutor.execute(() -> deliver(reminder));
+                }
+            });
+        } catch (Exception e) {
+            // Never let an exception cancel the periodic task
+            System.err.println("ERROR in reminder tick: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void drainInbox() {
+        Command command;
+        while ((command = inbox.poll()) != null) {
+            Reminder reminder = command.reminder();
+            if (reminder != null && reminder.dueAt().equals(inDelivery.get(command.taskId()))) {
+                continue; // already fired for this dueAt
+            }
+            // Cancelled or rescheduled: a delivery still in flight must not be retried
+            inDelivery.remove(command.taskId());
+
+            if (reminder == null || toMillis(reminder.dueAt()) >= loadedUntil) {
+                // Cancelled, or outside the loaded window: a later refill will find it
+                scheduled.remove(command.taskId());
+            } else if (!reminder.dueAt().equals(scheduled.get(command.taskId()))) {
+                // Every update re-sends schedule(); only a new dueAt needs a wheel entry
+                add(reminder, toMillis(reminder.dueAt()));
+            }
+        }
+    }
+
+    // Retries failed deliveries and releases settled ones
+    private void drainOutcomes() {
+        Outcome outcome;
+        while ((outcome = outcomes.poll()) != null) {
+            Reminder reminder = outcome.reminder();
+            if (inDelivery.remove(reminder.taskId(), reminder.dueAt()) && !outcome.delivered()) {
+                add(reminder, System.currentTimeMillis() + retryDelayMillis);
+            }
+        }
+    }
+
+    private void refill() {
+        try {
+            drainInbox();
+            drainOutcomes();
+
+            long now = System.currentTimeMillis();
+            LocalDateTime horizon = toLocal(now + horizonMillis);
+            List<Task> due = taskRepository.findPendingReminders(horizon, PageRequest.of(0, refillBatchSize));
+
+            int added = 0;
+            for (Task task : due) {
+                if (!task.getDueAt().equals(scheduled.get(task.getId()))
+                        && !task.getDueAt().equals(inDelivery.get(task.getId()))) {
+                    add(new Reminder(task.getId(), task.getUserEmail(), task.getTitle(), task.getDueAt()),
+                            toMillis(task.getDueAt()));
+                    added++;
+                }
+            }
+
+            // A full batch may have stopped short of the horizon; only claim what was loaded
+            loadedUntil = due.size() < refillBatchSize
+                    ? now + horizonMillis
+                    : toMillis(due.get(due.size() - 1).getDueAt());
+
+            System.out.println("⏰ Reminder refill: " + due.size() + " pending, " + added + " added, "
+                    + wheel.size() + " in wheel");
+        } catch (Exception e) {
+            System.err.println("ERROR in reminder refill: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private void add(Reminder reminder, long dueMillis) {
+        scheduled.put(reminder.taskId(), reminder.dueAt());
+        wheel.add(dueMillis, reminder);
+    }
+
+    // ----------------- delivery and marker threads -----------------
+
+    private void deliver(Reminder reminder) {
+        try {
+            sink.deliver(reminder);
+            delivered.offer(reminder);
+        } catch (Exception e) {
+            System.err.println("ERROR delivering reminder for task " + reminder.taskId() + ": " + e.getMessage()
+                    + " – retrying in " + retryDelayMillis + "ms");
+            outcomes.offer(new Outcome(reminder, false));
+        }
+    }
+
+    // One short UPDATE per distinct dueAt instead of one per reminder
+    private void markSent() {
+        Map<LocalDateTime, List<Reminder>> byDueAt = new HashMap<>();
+        Reminder reminder;
+        while ((reminder = delivered.poll()) != null) {
+            byDueAt.computeIfAbsent(reminder.dueAt(), k -> new ArrayList<>()).add(reminder);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        for (Map.Entry<LocalDateTime, List<Reminder>> batch : byDueAt.entrySet()) {
+            List<Reminder> reminders = batch.getValue();
+            try {
+                List<Long> ids = reminders.stream().map(Reminder::taskId).toList();
+                if (taskRepository.markRemindersSent(ids, batch.getKey(), now) > 0) {
+                    // reminderSentAt is part of the listed JSON
+                    reminders.stream().map(Reminder::userEmail).distinct().forEach(readCoalescer::fence);
+                }
+            } catch (Exception e) {
+                // Still unsent in the DB, so a later refill will deliver them again
+                System.err.println("ERROR marking " + reminders.size() + " reminders sent: " + e.getMessage());
+            }
+            // Only settle once the mark is committed, so a refill can't load them in between
+            reminders.forEach(r -> outcomes.offer(new Outcome(r, true)));
+        }
+    }
+
+    private static long toMillis(LocalDateTime time) {
+        return time.atZone(ZONE).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toLocal(long millis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZONE);
+    }
+
+    private static ThreadFactory daemon(String name) {
+        return r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    // reminder == null means cancel
+    private record Command(Long taskId, Reminder reminder) {}
+
+    private record Outcome(Reminder reminder, boolean delivered) {}
+}
@@ -0,0 +1,13 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+/**
+ * Where fired reminders go. Selected with the reminders.sink property.
+ *
+ * Delivery is at-least-once: a reminder is only marked sent after deliver()
+ * returns, so after a crash or a thrown exception it will be delivered again.
+ * Implementations run on the reminder-delivery pool (reminders.delivery-threads),
+ * so a slow sink delays other deliveries but never the wheel itself.
+ */
+public interface ReminderSink {
+    void deliver(Reminder reminder) throws Exception;
+}
@@ -0,0 +1,48 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+
+/**
+ * POSTs each reminder as JSON to reminders.webhook-url. Any non-2xx response
+ * is treated as a failed delivery and retried.
+ */
+@Component
+@ConditionalOnProperty(name = "reminders.sink", havingValue = "webhook")
+public class WebhookReminderSink implements ReminderSink {
+
+    private final HttpClient httpClient = HttpClient.newBuilder()
+            .connectTimeout(Duration.ofSeconds(2))
+            .build();
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${reminders.webhook-url}")
+    private String webhookUrl;
+
+    public WebhookReminderSink(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void deliver(Reminder reminder) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(webhookUrl))
+                .timeout(Duration.ofSeconds(5))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(reminder)))
+                .build();
+
+        HttpResponse<Void> response = httpClient.send(request, HttpResponse.BodyHandlers.discarding());
+        if (response.statusCode() / 100 != 2) {
+            throw new IllegalStateException("Webhook returned HTTP " + response.statusCode());
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.sriinfosoft.taskmanager.repository;
+
+import com.sriinfosoft.taskmanager.model.ArchivedTask;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface ArchivedTaskRepository extends JpaRepository<ArchivedTask, Long> {
+
+    // Served by idx_tasks_archive_user_completed
+    List<ArchivedTask> findByUserEmailOrderByCompletedAtDesc(String userEmail, Pageable page);
+
+    long countByUserEmail(String userEmail);
+
+    // INSERT ... SELECT takes shared locks on the source rows, so a concurrent
+    // "uncomplete" waits until the matching DELETE below has committed.
+    @Modifying
+    @Query(value = "INSERT INTO tasks_archive " +
+                   "(id, title, completed, user_email, due_at, completed_at, created_at, updated_at, archived_at) " +
+                   "SELECT id, title, completed, user_email, due_at, completed_at, created_at, updated_at, :now " +
+                   "FROM tasks WHERE id IN (:ids) AND completed = 1 AND completed_at < :cutoff",
+           nativeQuery = true)
+    int copyFromTasks(@Param("ids") List<Long> ids,
+                      @Param("cutoff") LocalDateTime cutoff,
+                      @Param("now") LocalDateTime now);
+}
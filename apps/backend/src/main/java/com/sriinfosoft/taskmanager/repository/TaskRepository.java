@@ -1,11 +1,88 @@
 package com.sriinfosoft.taskmanager.repository;
 
 import com.sriinfosoft.taskmanager.model.Task;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface TaskRepository extends JpaRepository<Task, Long> {
     List<Task> findByUserEmail(String userEmail);
-}
\ No newline at end of file
+
+    // Served by idx_tasks_user_position; id breaks ties between equal keys
+    List<Task> findByUserEmailOrderByPositionAscIdAsc(String userEmail);
+
+    // NULL (unranked) positions sort first in MariaDB, so this is the last ranked task
+    Optional<Task> findTopByUserEmailOrderByPositionDesc(String userEmail);
+
+    long countByUserEmail(String userEmail);
+
+    long countByUserEmailAndCompletedTrue(String userEmail);
+
+    // Row lock so the completed flag we diff against for the stats counters
+    // can't change underneath us before commit.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id = :id")
+    Optional<Task> findByIdForUpdate(@Param("id") Long id);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.userEmail = :email ORDER BY t.position ASC, t.id ASC")
+    List<Task> findByUserEmailForRebalance(@Param("email") String email);
+
+    // Locks rows in primary-key order, so two moves over the same tasks can't deadlock
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id IN :ids ORDER BY t.id ASC")
+    List<Task> findAllByIdForUpdate(@Param("ids") List<Long> ids);
+
+    // Range scan on idx_tasks_reminder_pending (equality on reminder_sent_at and
+    // completed, range on due_at), so completed tasks that were never reminded
+    // aren't scanned: unsent reminders due before the horizon, including overdue
+    // ones left over from before a restart.
+    @Query("SELECT t FROM Task t WHERE t.reminderSentAt IS NULL AND t.dueAt <= :horizon " +
+           "AND t.completed = false ORDER BY t.dueAt ASC")
+    List<Task> findPendingReminders(@Param("horizon") LocalDateTime horizon, Pageable page);
+
+    // Marks a batch of delivered reminders that share one dueAt. Only rows still
+    // due at that time match: a dueAt change in the meantime leaves the row
+    // pending for the new time.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Task t SET t.reminderSentAt = :now WHERE t.id IN :ids AND t.dueAt = :dueAt")
+    int markRemindersSent(@Param("ids") List<Long> ids,
+                          @Param("dueAt") LocalDateTime dueAt,
+                          @Param("now") LocalDateTime now);
+
+    // Oldest completions first, via idx_tasks_completed_at
+    @Query("SELECT t.id FROM Task t WHERE t.completed = true AND t.completedAt < :cutoff " +
+           "ORDER BY t.completedAt ASC")
+    List<Long> findArchivable(@Param("cutoff") LocalDateTime cutoff, Pageable page);
+
+    // Locks an archive batch before it is copied, so the versions journaled for
+    // its rows are final. Rows no longer archivable drop out here.
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT t FROM Task t WHERE t.id IN :ids AND t.completed = true AND t.completedAt < :cutoff " +
+           "ORDER BY t.id ASC")
+    List<Task> lockArchivable(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    // Same predicate as ArchivedTaskRepository.copyFromTasks, in the same transaction
+    @Modifying
+    @Query(value = "DELETE FROM tasks WHERE id IN (:ids) AND completed = 1 AND completed_at < :cutoff",
+           nativeQuery = true)
+    int deleteArchived(@Param("ids") List<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    // Rows completed before completed_at existed: treat their last update as the completion time
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE tasks SET completed_at = COALESCE(updated_at, created_at, NOW()) " +
+                   "WHERE completed = 1 AND completed_at IS NULL LIMIT :limit", nativeQuery = true)
+    int backfillCompletedAt(@Param("limit") int limit);
+}
@@ -0,0 +1,54 @@
+package com.sriinfosoft.taskmanager.repository;
+
+import com.sriinfosoft.taskmanager.model.TaskStats;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface TaskStatsRepository extends JpaRepository<TaskStats, String> {
+
+    @Modifying
+    @Query("UPDATE TaskStats s SET s.totalCount = s.totalCount + :total, " +
+           "s.completedCount = s.completedCount + :completed, s.updatedAt = :now " +
+           "WHERE s.userEmail = :email")
+    int applyDelta(@Param("email") String email,
+                   @Param("total") long total,
+                   @Param("completed") long completed,
+                   @Param("now") LocalDateTime now);
+
+    // INSERT IGNORE: if a concurrent request seeded the row first, keep theirs.
+    @Modifying
+    @Query(value = "INSERT IGNORE INTO task_stats (user_email, total_count, completed_count, updated_at) " +
+                   "VALUES (:email, :total, :completed, :now)", nativeQuery = true)
+    int insertIfAbsent(@Param("email") String email,
+                       @Param("total") long total,
+                       @Param("completed") long completed,
+                       @Param("now") LocalDateTime now);
+
+    // Keyset paging over users for the reconciler
+    @Query("SELECT s.userEmail FROM TaskStats s WHERE s.userEmail > :after ORDER BY s.userEmail ASC")
+    List<String> findUserEmailsAfter(@Param("after") String after, Pageable page);
+
+    // Recounts one user's row from the tasks and tasks_archive tables; used by the
+    // periodic reconciler to repair any drift (manual DB edits, rows written
+    // before stats existed). Archived tasks are all completed. Runs in its own
+    // short transaction so it only ever locks this user's rows.
+    @Transactional
+    @Modifying
+    @Query(value = "UPDATE task_stats s SET " +
+                   "s.total_count = (SELECT COUNT(*) FROM tasks t WHERE t.user_email = s.user_email) " +
+                   "  + (SELECT COUNT(*) FROM tasks_archive a WHERE a.user_email = s.user_email), " +
+                   "s.completed_count = (SELECT COUNT(*) FROM tasks t WHERE t.user_email = s.user_email AND t.completed = 1) " +
+                   "  + (SELECT COUNT(*) FROM tasks_archive a WHERE a.user_email = s.user_email), " +
+                   "s.updated_at = NOW() " +
+                   "WHERE s.user_email = :email", nativeQuery = true)
+    int reconcileUser(@Param("email") String email);
+}
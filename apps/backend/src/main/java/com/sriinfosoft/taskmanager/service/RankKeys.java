@@ -0,0 +1,132 @@
+package com.sriinfosoft.taskmanager.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lexicographic rank keys for Task.position.
+ *
+ * Keys are base-36 strings over 0-9a-z, compared as plain strings, so the
+ * ordering is the same in Java and in MariaDB's default case-insensitive
+ * collation. A key can always be generated between two distinct keys, which
+ * lets a drag-and-drop move rewrite only the moved row.
+ */
+public final class RankKeys {
+
+    private static final String DIGITS = "0123456789abcdefghijklmnopqrstuvwxyz";
+    private static final int BASE = DIGITS.length();
+
+    // Width used for a user's first task and the minimum width after a rebalance.
+    // 36^6 keys leaves room for billions of appends before a key grows.
+    private static final int MIN_WIDTH = 6;
+    private static final int MAX_WIDTH = 12; // 36^12 still fits in a long
+
+    private RankKeys() {}
+
+    /** Key for the first task in an empty list. */
+    public static String first() {
+        return "1" + "0".repeat(MIN_WIDTH - 1);
+    }
+
+    /**
+     * Smallest step past {@code lo} at its own width, carrying like a counter.
+     * Only grows the key once every digit is already 'z'.
+     */
+    public static String after(String lo) {
+        if (lo == null || lo.isEmpty()) {
+            return first();
+        }
+        char[] chars = lo.toCharArray();
+        for (int i = chars.length - 1; i >= 0; i--) {
+            int d = digit(chars[i]);
+            if (d < BASE - 1) {
+                chars[i] = DIGITS.charAt(d + 1);
+                return new String(chars);
+            }
+            chars[i] = '0';
+        }
+        return lo + "1";
+    }
+
+    /**
+     * A key strictly between {@code lo} and {@code hi}.
+     * {@code lo} may be null/empty (start of list), {@code hi} may be null (end of list).
+     *
+     * @throws IllegalArgumentException if lo >= hi or no key fits between them
+     */
+    public static String between(String lo, String hi) {
+        if (lo == null) {
+            lo = "";
+        }
+        if (hi == null) {
+            return lo.isEmpty() ? first() : after(lo);
+        }
+        if (lo.compareTo(hi) >= 0) {
+            throw new IllegalArgumentException("Rank keys out of order: '" + lo + "' >= '" + hi + "'");
+        }
+
+        StringBuilder key = new StringBuilder();
+        boolean bounded = true; // false once we are already below hi
+        for (int i = 0; ; i++) {
+            int l = i < lo.length() ? digit(lo.charAt(i)) : 0;
+            int h;
+            if (!bounded) {
+                h = BASE;
+            } else if (i < hi.length()) {
+                h = digit(hi.charAt(i));
+            } else {
+                // hi ran out while still equal to lo padded with zeros, e.g. "a" vs "a0"
+                throw new IllegalArgumentException("No rank key between '" + lo + "' and '" + hi + "'");
+            }
+
+            if (l == h) {
+                key.append(DIGITS.charAt(l));
+                continue;
+            }
+            int mid = (l + h) / 2;
+            if (mid > l) {
+                key.append(DIGITS.charAt(mid));
+                return key.toString();
+            }
+            // Adjacent digits: keep lo's digit, then anything above lo's tail is below hi.
+            key.append(DIGITS.charAt(l));
+            bounded = false;
+        }
+    }
+
+    /**
+     * {@code count} evenly spaced keys of equal width, spread over the lower half
+     * of the key space so there is room both before the first and after the last.
+     */
+    public static List<String> spread(int count) {
+        int width = MIN_WIDTH;
+        while (width < MAX_WIDTH && pow(width) < 4L * (count + 1)) {
+            width++;
+        }
+        long start = pow(width - 1);
+        long step = Math.max(1, (pow(width) / 2 - start) / (count + 1));
+
+        List<String> keys = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            String digits = Long.toString(start + i * step, BASE);
+            keys.add("0".repeat(Math.max(0, width - digits.length())) + digits);
+        }
+        return keys;
+    }
+
+    private static long pow(int width) {
+        long v = 1;
+        for (int i = 0; i < width; i++) {
+            v *= BASE;
+        }
+        return v;
+    }
+
+    private static int digit(char c) {
+        int d = DIGITS.indexOf(c);
+        if (d < 0) {
+            throw new IllegalArgumentException("Invalid rank key character: '" + c + "'");
+        }
+        return d;
+    }
+}
@@ -0,0 +1,149 @@
+package com.sriinfosoft.taskmanager.service;
+
+import com.sriinfosoft.taskmanager.journal.TaskChangeJournal;
+import com.sriinfosoft.taskmanager.journal.TaskChangeOp;
+import com.sriinfosoft.taskmanager.model.Task;
+import com.sriinfosoft.taskmanager.repository.ArchivedTaskRepository;
+import com.sriinfosoft.taskmanager.repository.TaskRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Moves tasks completed more than tasks.archive.after-days ago from the hot
+ * tasks table into tasks_archive.
+ *
+ * Each batch is its own short transaction (lock, copy, then delete with the
+ * same predicate), so user writes only ever wait on one batch's rows. Exposes
+ * tasks.archive.hot_rows.before / .after gauges and a tasks.archive.moved counter.
+ */
+@Component
+public class TaskArchiver {
+
+    private final TaskRepository taskRepository;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final TaskReadCoalescer readCoalescer;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskChangeJournal changeJournal;
+
+    private final AtomicLong hotRowsBefore = new AtomicLong();
+    private final AtomicLong hotRowsAfter = new AtomicLong();
+    private final Counter movedCounter;
+
+    @Value("${tasks.archive.after-days:30}")
+    private int afterDays;
+
+    @Value("${tasks.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${tasks.archive.batch-pause-ms:100}")
+    private long batchPauseMillis;
+
+    public TaskArchiver(TaskRepository taskRepository, ArchivedTaskRepository archivedTaskRepository,
+                        TaskReadCoalescer readCoalescer, PlatformTransactionManager transactionManager,
+                        TaskChangeJournal changeJournal, MeterRegistry meterRegistry) {
+        this.taskRepository = taskRepository;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.readCoalescer = readCoalescer;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.changeJournal = changeJournal;
+
+        Gauge.builder("tasks.archive.hot_rows.before", hotRowsBefore, AtomicLong::get)
+                .description("Rows in the tasks table before the last archive run")
+                .register(meterRegistry);
+        Gauge.builder("tasks.archive.hot_rows.after", hotRowsAfter, AtomicLong::get)
+                .description("Rows in the tasks table after the last archive run")
+                .register(meterRegistry);
+        this.movedCounter = Counter.builder("tasks.archive.moved")
+                .description("Tasks moved from the tasks table to tasks_archive")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(cron = "${tasks.archive.cron:0 30 3 * * *}")
+    public void archive() {
+        try {
+            LocalDateTime cutoff = LocalDateTime.now().minusDays(afterDays);
+            long before = taskRepository.count();
+            hotRowsBefore.set(before);
+            System.out.println("🗄️ Archiving tasks completed before " + cutoff + " – hot rows: " + before);
+
+            // Legacy completed rows have no completed_at yet and would never qualify
+            while (taskRepository.backfillCompletedAt(batchSize) > 0) {
+                pause();
+            }
+
+            long moved = 0;
+            int batchMoved;
+            do {
+                batchMoved = archiveBatch(cutoff);
+                moved += batchMoved;
+                movedCounter.increment(batchMoved);
+                pause();
+            } while (batchMoved > 0);
+
+            long after = taskRepository.count();
+            hotRowsAfter.set(after);
+            System.out.println("🗄️ Archived " + moved + " tasks – hot rows: " + before + " -> " + after);
+
+        } catch (Exception e) {
+            System.err.println("ERROR in task archiver: " + e.getMessage());
+            e.printStackTrace();
+        }
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> candidates = taskRepository.findArchivable(cutoff, PageRequest.of(0, batchSize));
+        if (candidates.isEmpty()) {
+            return 0;
+        }
+
+        List<Task> archived = transactionTemplate.execute(status -> {
+            // Rows un-completed since the scan drop out here and stay hot
+            List<Task> locked = taskRepository.lockArchivable(candidates, cutoff);
+            if (locked.isEmpty()) {
+                return locked;
+            }
+            List<Long> ids = locked.stream().map(Task::getId).toList();
+            int copied = archivedTaskRepository.copyFromTasks(ids, cutoff, LocalDateTime.now());
+            int deleted = taskRepository.deleteArchived(ids, cutoff);
+            if (copied != locked.size() || deleted != locked.size()) {
+                // Both statements run against rows we hold locks on; bail out if not
+                throw new IllegalStateException("Archive locked " + locked.size() + " rows but copied "
+                        + copied + " and deleted " + deleted);
+            }
+            return locked;
+        });
+        if (archived == null || archived.isEmpty()) {
+            return 0;
+        }
+
+        // Archived rows drop out of the list; don't let in-flight reads serve them afterwards
+        Set<String> emails = new HashSet<>();
+        for (Task task : archived) {
+            emails.add(task.getUserEmail());
+        }
+        changeJournal.appendRemovals(TaskChangeOp.ARCHIVE, archived);
+        emails.forEach(readCoalescer::fence);
+        return archived.size();
+    }
+
+    private void pause() {
+        try {
+            Thread.sleep(batchPauseMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.sriinfosoft.taskmanager.service;
+
+import com.sriinfosoft.taskmanager.journal.TaskChangeJournal;
+import com.sriinfosoft.taskmanager.journal.TaskChangeOp;
+import com.sriinfosoft.taskmanager.model.Task;
+import com.sriinfosoft.taskmanager.repository.TaskRepository;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Rewrites a user's rank keys to short, evenly spaced values.
+ *
+ * Moves only ever lengthen keys, so users are queued here when a move produces
+ * a key longer than tasks.position.max-key-length (or when unranked legacy
+ * rows are seen) and rebalanced off the request path.
+ */
+@Component
+public class TaskPositionRebalancer {
+
+    private final TaskRepository taskRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TaskReadCoalescer readCoalescer;
+    private final TaskChangeJournal changeJournal;
+
+    private final Set<String> pending = ConcurrentHashMap.newKeySet();
+
+    public TaskPositionRebalancer(TaskRepository taskRepository, PlatformTransactionManager transactionManager,
+                                  TaskReadCoalescer readCoalescer, TaskChangeJournal changeJournal) {
+        this.taskRepository = taskRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readCoalescer = readCoalescer;
+        this.changeJournal = changeJournal;
+    }
+
+    public void request(String email) {
+        if (pending.add(email)) {
+            System.out.println("🔀 Queued position rebalance for " + email);
+        }
+    }
+
+    /**
+     * Rebalances now, in its own transaction. The user's rows are locked for the
+     * duration, so concurrent moves either land before the rewrite or see the
+     * new keys (and a client's stale expectedPosition gets a 409).
+     */
+    public void rebalance(String email) {
+        List<Task> rebalanced = transactionTemplate.execute(status -> {
+            List<Task> tasks = taskRepository.findByUserEmailForRebalance(email);
+            List<String> keys = RankKeys.spread(tasks.size());
+            for (int i = 0; i < tasks.size(); i++) {
+                tasks.get(i).setPosition(keys.get(i));
+            }
+            System.out.println("🔀 Rebalanced " + tasks.size() + " positions for " + email);
+            return tasks;
+        });
+
+        // Journal the new keys only once they are committed, and outside the
+        // transaction so waiting for the fsync doesn't hold a pooled connection
+        if (rebalanced != null) {
+            changeJournal.appendAll(TaskChangeOp.MOVE, rebalanced);
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${tasks.position.rebalance-interval-ms:60000}")
+    public void rebalancePending() {
+        List<String> failed = new ArrayList<>();
+        Iterator<String> it = pending.iterator();
+        while (it.hasNext()) {
+            String email = it.next();
+            it.remove();
+            try {
+                rebalance(email);
+                readCoalescer.fence(email);
+            } catch (Exception e) {
+                System.err.println("ERROR rebalancing positions for " + email + ": " + e.getMessage());
+                failed.add(email);
+            }
+        }
+        pending.addAll(failed); // retry on the next run
+    }
+}
@@ -0,0 +1,67 @@
+package com.sriinfosoft.taskmanager.service;
+
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Single-flight for task reads: concurrent requests for the same user and
+ * query key share one DB call and its already-serialized JSON.
+ *
+ * Nothing is cached – a flight is forgotten as soon as it completes. Writers
+ * call {@link #fence} after committing, which detaches that user's in-flight
+ * reads so requests arriving after the write start a fresh query instead of
+ * joining one that may have read the old rows.
+ */
+@Component
+public class TaskReadCoalescer {
+
+    private final ConcurrentMap<FlightKey, CompletableFuture<byte[]>> inFlight = new ConcurrentHashMap<>();
+
+    public byte[] read(String email, String queryKey, Callable<byte[]> loader) throws Exception {
+        FlightKey key = new FlightKey(email, queryKey);
+        CompletableFuture<byte[]> flight = new CompletableFuture<>();
+        CompletableFuture<byte[]> existing = inFlight.putIfAbsent(key, flight);
+        if (existing != null) {
+            System.out.println("🔗 Joined in-flight read " + queryKey + " for " + email);
+            return await(existing);
+        }
+
+        try {
+            flight.complete(loader.call());
+        } catch (Throwable t) {
+            // Errors too: joiners block on this future and would otherwise never wake
+            flight.completeExceptionally(t);
+        } finally {
+            // No-op if a fence already detached this flight
+            inFlight.remove(key, flight);
+        }
+        return await(flight);
+    }
+
+    /** Call after a write for {@code email} has committed. */
+    public void fence(String email) {
+        // The map only holds reads that are running right now, so this scan is small
+        inFlight.keySet().removeIf(key -> key.email().equals(email));
+    }
+
+    private static byte[] await(CompletableFuture<byte[]> flight) throws Exception {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof Exception cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+
+    private record FlightKey(String email, String queryKey) {}
+}
@@ -0,0 +1,356 @@
+package com.sriinfosoft.taskmanager.service;
+
+import com.sriinfosoft.taskmanager.journal.TaskChangeJournal;
+import com.sriinfosoft.taskmanager.journal.TaskChangeOp;
+import com.sriinfosoft.taskmanager.model.ArchivedTask;
+import com.sriinfosoft.taskmanager.model.Task;
+import com.sriinfosoft.taskmanager.model.TaskStats;
+import com.sriinfosoft.taskmanager.repository.ArchivedTaskRepository;
+import com.sriinfosoft.taskmanager.repository.TaskRepository;
+import com.sriinfosoft.taskmanager.repository.TaskStatsRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.access.AccessDeniedException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Task writes plus the per-user counters behind GET /api/tasks/stats.
+ * Every mutation adjusts task_stats in the same transaction as the task row,
+ * so reading the stats is a single primary-key lookup. The counters include
+ * archived tasks, so archival itself leaves them unchanged.
+ *
+ * Each mutation is also recorded in the change journal once it commits, tagged
+ * with the row's version (see TaskChangeRecord).
+ */
+@Service
+public class TaskService {
+
+    private static final int RECONCILE_PAGE_SIZE = 100;
+
+    private final TaskRepository taskRepository;
+    private final TaskStatsRepository taskStatsRepository;
+    private final TaskPositionRebalancer positionRebalancer;
+    private final ArchivedTaskRepository archivedTaskRepository;
+    private final TaskChangeJournal changeJournal;
+
+    @Value("${tasks.position.max-key-length:24}")
+    private int maxKeyLength;
+
+    public TaskService(TaskRepository taskRepository, TaskStatsRepository taskStatsRepository,
+                       TaskPositionRebalancer positionRebalancer, ArchivedTaskRepository archivedTaskRepository,
+                       TaskChangeJournal changeJournal) {
+        this.taskRepository = taskRepository;
+        this.taskStatsRepository = taskStatsRepository;
+        this.positionRebalancer = positionRebalancer;
+        this.archivedTaskRepository = archivedTaskRepository;
+        this.changeJournal = changeJournal;
+    }
+
+    /**
+     * The user's tasks in their chosen order. Rows created before positions
+     * existed come back first (NULL sorts lowest) and queue a rebalance that
+     * gives them keys.
+     */
+    public List<Task> list(String email) {
+        List<Task> tasks = taskRepository.findByUserEmailOrderByPositionAscIdAsc(email);
+        if (!tasks.isEmpty() && tasks.get(0).getPosition() == null) {
+            positionRebalancer.request(email);
+        }
+        return tasks;
+    }
+
+    @Transactional
+    public Task create(Task task) {
+        ensureStats(task.getUserEmail());
+
+        // New tasks go to the end of the list
+        String last = taskRepository.findTopByUserEmailOrderByPositionDesc(task.getUserEmail())
+                .map(Task::getPosition)
+                .orElse(null);
+        task.setPosition(RankKeys.between(last, null));
+        if (task.getDueAt() != null) {
+            task.setDueAt(task.getDueAt().truncatedTo(ChronoUnit.SECONDS));
+        }
+        task.setReminderSentAt(null);
+        task.setCompletedAt(Boolean.TRUE.equals(task.getCompleted()) ? LocalDateTime.now() : null);
+
+        Task saved = taskRepository.save(task);
+        long completed = Boolean.TRUE.equals(saved.getCompleted()) ? 1 : 0;
+        taskStatsRepository.applyDelta(saved.getUserEmail(), 1, completed, LocalDateTime.now());
+        journalAfterCommit(TaskChangeOp.CREATE, saved);
+        return saved;
+    }
+
+    /**
+     * Applies the non-null fields of {@code details} to the task; a null field
+     * means "unchanged", so removing the due date takes {@code clearDueAt}.
+     * Returns empty if there is no such task.
+     *
+     * @throws AccessDeniedException if the task belongs to another user
+     */
+    @Transactional
+    public Optional<Task> update(Long id, String email, Task details, boolean clearDueAt) {
+        Optional<Task> opt = lockOwned(id, email);
+        if (opt.isEmpty()) {
+            return Optional.empty();
+        }
+
+        Task task = opt.get();
+        ensureStats(task.getUserEmail());
+        boolean wasCompleted = Boolean.TRUE.equals(task.getCompleted());
+
+        if (details.getTitle() != null) {
+            task.setTitle(details.getTitle());
+        }
+        if (details.getCompleted() != null && !details.getCompleted().equals(task.getCompleted())) {
+            task.setCompleted(details.getCompleted());
+            task.setCompletedAt(details.getCompleted() ? LocalDateTime.now() : null);
+        }
+        if (clearDueAt) {
+            task.setDueAt(null);
+            task.setReminderSentAt(null);
+        } else if (details.getDueAt() != null) {
+            // Second precision keeps the reminder's dueAt equal to what the DB stores
+            LocalDateTime dueAt = details.getDueAt().truncatedTo(ChronoUnit.SECONDS);
+            if (!dueAt.equals(task.getDueAt())) {
+                task.setDueAt(dueAt);
+                task.setReminderSentAt(null);
+            }
+        }
+        task.setUpdatedAt(LocalDateTime.now());
+        Task saved = taskRepository.save(task);
+
+        boolean isCompleted = Boolean.TRUE.equals(saved.getCompleted());
+        if (wasCompleted != isCompleted) {
+            taskStatsRepository.applyDelta(saved.getUserEmail(), 0, isCompleted ? 1 : -1, LocalDateTime.now());
+        }
+        journalAfterCommit(TaskChangeOp.UPDATE, saved);
+        return Optional.of(saved);
+    }
+
+    /**
+     * Deletes the task. Returns false if there is no such task.
+     *
+     * @throws AccessDeniedException if the task belongs to another user
+     */
+    @Transactional
+    public boolean delete(Long id, String email) {
+        Optional<Task> opt = lockOwned(id, email);
+        if (opt.isEmpty()) {
+            return false;
+        }
+
+        Task task = opt.get();
+        ensureStats(task.getUserEmail());
+        taskRepository.delete(task);
+        long completed = Boolean.TRUE.equals(task.getCompleted()) ? 1 : 0;
+        taskStatsRepository.applyDelta(task.getUserEmail(), -1, -completed, LocalDateTime.now());
+
+        // Holds the connection while it waits for the fsync, as in journalAfterCommit
+        long version = (task.getVersion() != null ? task.getVersion() : 0) + 1;
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changeJournal.appendRemoval(TaskChangeOp.DELETE, id, version, task.getUserEmail());
+            }
+        });
+        return true;
+    }
+
+    /**
+     * Moves a task between two neighbours by rewriting only its own position.
+     * {@code afterId} is the task that should precede it (null = top of list),
+     * {@code beforeId} the one that should follow it (null = bottom).
+     * {@code expectedPosition}, if given, is the moved task's key as the client
+     * last saw it.
+     *
+     * The task and both neighbours are row-locked, so the key is computed from
+     * positions nothing else can change before commit. Nothing is written
+     * unless the move succeeds. Returns empty if there is no such task.
+     *
+     * @throws AccessDeniedException if the task belongs to another user
+     * @throws IllegalArgumentException if a neighbour is not one of the user's
+     *         tasks, or the neighbours are given in the wrong order
+     * @throws IllegalStateException if the task moved since the client read it, or
+     *         the user's keys need a rebalance first (one is queued)
+     */
+    @Transactional
+    public Optional<Task> move(Long id, String email, Long afterId, Long beforeId, String expectedPosition) {
+        if (id.equals(afterId) || id.equals(beforeId)) {
+            throw new IllegalArgumentException("A task cannot be its own neighbour");
+        }
+        if (afterId != null && afterId.equals(beforeId)) {
+            throw new IllegalArgumentException("afterId and beforeId must be different tasks");
+        }
+
+        // Lock in id order so concurrent moves over the same rows can't deadlock
+        List<Long> ids = new ArrayList<>(List.of(id));
+        if (afterId != null) {
+            ids.add(afterId);
+        }
+        if (beforeId != null) {
+            ids.add(beforeId);
+        }
+        // The moved task is resolved and authorized from this locked read only,
+        // so expectedPosition is compared against the committed position
+        Map<Long, Task> locked = new HashMap<>();
+        Task task = null;
+        for (Task t : taskRepository.findAllByIdForUpdate(ids)) {
+            if (t.getId().equals(id)) {
+                task = t;
+            } else if (email.equals(t.getUserEmail())) {
+                locked.put(t.getId(), t);
+            }
+        }
+        if (task == null) {
+            return Optional.empty();
+        }
+        if (!email.equals(task.getUserEmail())) {
+            throw new AccessDeniedException("Task " + id + " belongs to another user");
+        }
+        String lo = afterId != null ? owned(locked, afterId).getPosition() : null;
+        String hi = beforeId != null ? owned(locked, beforeId).getPosition() : null;
+
+        if (expectedPosition != null && !expectedPosition.equals(task.getPosition())) {
+            throw new IllegalStateException("Task was moved concurrently");
+        }
+        if ((afterId != null && lo == null) || (beforeId != null && hi == null)) {
+            // Legacy rows created before positions existed
+            throw needsRebalance(email, "Tasks are not ranked yet");
+        }
+        if (lo != null && hi != null) {
+            int cmp = lo.compareTo(hi);
+            if (cmp > 0 || (cmp == 0 && afterId > beforeId)) {
+                throw new IllegalArgumentException("afterId must sort before beforeId");
+            }
+            if (cmp == 0) {
+                // Equal keys from concurrent appends; only a rebalance separates them
+                throw needsRebalance(email, "Neighbours share a position");
+            }
+        }
+
+        String key;
+        try {
+            key = RankKeys.between(lo, hi);
+        } catch (IllegalArgumentException e) {
+            throw needsRebalance(email, e.getMessage());
+        }
+        if (key.length() > Task.POSITION_LENGTH) {
+            throw needsRebalance(email, "Position key too long");
+        }
+
+        task.setPosition(key);
+        task.setUpdatedAt(LocalDateTime.now());
+        Task saved = taskRepository.save(task);
+        if (key.length() > maxKeyLength) {
+            positionRebalancer.request(email);
+        }
+        journalAfterCommit(TaskChangeOp.MOVE, saved);
+        return Optional.of(saved);
+    }
+
+    // The ownership check and every field we diff against come from the locked
+    // row. Nothing may load the task earlier in the request: with open-in-view
+    // the persistence context would hand back that earlier, unlocked copy.
+    private Optional<Task> lockOwned(Long id, String email) {
+        Optional<Task> opt = taskRepository.findByIdForUpdate(id);
+        if (opt.isPresent() && !email.equals(opt.get().getUserEmail())) {
+            throw new AccessDeniedException("Task " + id + " belongs to another user");
+        }
+        return opt;
+    }
+
+    // The version is bumped when the transaction flushes, so read the task's
+    // fields only once it has committed. afterCommit runs before Spring releases
+    // the transaction's JDBC connection, so with journal.sync-writes each write
+    // request holds its pooled connection for up to journal.flush-interval-ms
+    // longer; size the pool for that or turn sync-writes off.
+    private void journalAfterCommit(TaskChangeOp op, Task task) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                changeJournal.append(op, task);
+            }
+        });
+    }
+
+    private static Task owned(Map<Long, Task> tasks, Long id) {
+        Task task = tasks.get(id);
+        if (task == null) {
+            throw new IllegalArgumentException("Task " + id + " not found");
+        }
+        return task;
+    }
+
+    private IllegalStateException needsRebalance(String email, String reason) {
+        positionRebalancer.request(email);
+        return new IllegalStateException(reason + "; positions are being rebalanced");
+    }
+
+    /** Archived (cold tier) tasks, most recently completed first. */
+    public List<ArchivedTask> listArchived(String email, int page, int size) {
+        return archivedTaskRepository.findByUserEmailOrderByCompletedAtDesc(email, PageRequest.of(page, size));
+    }
+
+    @Transactional
+    public TaskStats getStats(String email) {
+        ensureStats(email);
+        return taskStatsRepository.findById(email)
+                .orElseThrow(() -> new IllegalStateException("task_stats row missing for " + email));
+    }
+
+    /**
+     * Seeds the counters for a user who has no task_stats row yet (first task,
+     * or tasks created before stats existed). This is the only path that counts
+     * rows; afterwards the row is maintained by deltas.
+     */
+    private void ensureStats(String email) {
+        if (taskStatsRepository.existsById(email)) {
+            return;
+        }
+        long archived = archivedTaskRepository.countByUserEmail(email);
+        long total = taskRepository.countByUserEmail(email) + archived;
+        long completed = taskRepository.countByUserEmailAndCompletedTrue(email) + archived;
+        taskStatsRepository.insertIfAbsent(email, total, completed, LocalDateTime.now());
+        System.out.println("📊 Seeded task stats for " + email + ": total=" + total + ", completed=" + completed);
+    }
+
+    /**
+     * Recounts every user's stats, one user per transaction, so a concurrent
+     * write only ever waits on the recount of its own user.
+     */
+    @Scheduled(fixedDelayString = "${tasks.stats.reconcile-interval-ms:3600000}",
+               initialDelayString = "${tasks.stats.reconcile-interval-ms:3600000}")
+    public void reconcileStats() {
+        int users = 0;
+        String after = "";
+        List<String> emails;
+        do {
+            emails = taskStatsRepository.findUserEmailsAfter(after, PageRequest.of(0, RECONCILE_PAGE_SIZE));
+            for (String email : emails) {
+                try {
+                    taskStatsRepository.reconcileUser(email);
+                    users++;
+                } catch (Exception e) {
+                    System.err.println("ERROR reconciling task stats for " + email + ": " + e.getMessage());
+                }
+            }
+            if (!emails.isEmpty()) {
+                after = emails.get(emails.size() - 1);
+            }
+        } while (emails.size() == RECONCILE_PAGE_SIZE);
+        System.out.println("📊 Reconciled task stats for " + users + " users");
+    }
+}
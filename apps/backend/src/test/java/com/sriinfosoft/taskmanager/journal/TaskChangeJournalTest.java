@@ -0,0 +1,237 @@
+package com.sriinfosoft.taskmanager.journal;
+
+import com.sriinfosoft.taskmanager.model.Task;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskChangeJournalTest {
+
+    private static final int SEGMENT_BYTES = 4096;
+
+    @TempDir
+    Path dir;
+
+    private final List<TaskChangeJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeJournals() {
+        opened.forEach(TaskChangeJournal::close);
+    }
+
+    @Test
+    void roundTripsEveryField() throws Exception {
+        TaskChangeJournal journal = open(SEGMENT_BYTES);
+        Task task = task(7L, "Écrire le rapport ✓");
+        task.setCompleted(true);
+        task.setPosition("10000a");
+        task.setDueAt(LocalDateTime.of(2026, 3, 1, 9, 30, 15));
+        task.setVersion(3L);
+
+        long offset = journal.append(TaskChangeOp.UPDATE, task);
+        long removal = journal.appendRemoval(TaskChangeOp.DELETE, 7L, 4, "ana@example.com");
+
+        List<TaskChangeRecord> records = journal.read(0, 10).records();
+        assertEquals(2, records.size());
+
+        TaskChangeRecord update = records.get(0);
+        assertEquals(offset, update.offset());
+        assertEquals(TaskChangeOp.UPDATE, update.op());
+        assertEquals(7L, update.taskId());
+        assertEquals(3L, update.version());
+        assertEquals("ana@example.com", update.userEmail());
+        assertEquals("Écrire le rapport ✓", update.title());
+        assertEquals(Boolean.TRUE, update.completed());
+        assertEquals("10000a", update.position());
+        assertEquals(LocalDateTime.of(2026, 3, 1, 9, 30, 15), update.dueAt());
+
+        TaskChangeRecord delete = records.get(1);
+        assertEquals(removal, delete.offset());
+        assertEquals(update.nextOffset(), delete.offset());
+        assertEquals(TaskChangeOp.DELETE, delete.op());
+        assertEquals(4L, delete.version());
+        assertNull(delete.title());
+        assertNull(delete.completed());
+        assertNull(delete.position());
+        assertNull(delete.dueAt());
+    }
+
+    @Test
+    void readsAcrossSegmentRollover() throws Exception {
+        TaskChangeJournal journal = open(256);
+        for (long id = 1; id <= 40; id++) {
+            assertTrue(journal.append(TaskChangeOp.CREATE, task(id, "task " + id)) >= 0);
+        }
+
+        List<Long> ids = new ArrayList<>();
+        long offset = 0;
+        JournalBatch batch;
+        do {
+            batch = journal.read(offset, 7);
+            batch.records().forEach(r -> ids.add(r.taskId()));
+            offset = batch.nextOffset();
+        } while (!batch.records().isEmpty());
+
+        assertEquals(40, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(i + 1L, (long) ids.get(i));
+        }
+        assertTrue(journal.durableOffset() > 256);
+    }
+
+    @Test
+    void reopenContinuesAfterLastRecord() throws Exception {
+        TaskChangeJournal first = open(SEGMENT_BYTES);
+        first.append(TaskChangeOp.CREATE, task(1L, "one"));
+        first.append(TaskChangeOp.CREATE, task(2L, "two"));
+        long end = first.durableOffset();
+        first.close();
+
+        TaskChangeJournal second = open(SEGMENT_BYTES);
+        assertEquals(end, second.durableOffset());
+        assertEquals(end, second.append(TaskChangeOp.CREATE, task(3L, "three")));
+        assertEquals(3, second.read(0, 10).records().size());
+    }
+
+    @Test
+    void recoveryDiscardsTornTail() throws Exception {
+        TaskChangeJournal first = open(SEGMENT_BYTES);
+        first.append(TaskChangeOp.CREATE, task(1L, "one"));
+        first.append(TaskChangeOp.CREATE, task(2L, "two"));
+        int end = (int) first.durableOffset();
+        first.close();
+
+        // A crash mid-append: a length and some body bytes without a matching
+        // CRC, plus stray bytes further on that lie past the torn record's length.
+        try (FileChannel file = FileChannel.open(segment(0), StandardOpenOption.WRITE)) {
+            file.write(ByteBuffer.allocate(12).putInt(40).putInt(0xBAD).putInt(0x7F7F7F7F).flip(), end);
+            file.write(ByteBuffer.allocate(8).putInt(24).putInt(0x1234).flip(), end + 200);
+        }
+
+        TaskChangeJournal second = open(SEGMENT_BYTES);
+        assertEquals(end, second.durableOffset());
+        assertEquals(2, second.read(0, 10).records().size());
+
+        // The whole tail is zeroed, not just the torn record's own length
+        try (FileChannel file = FileChannel.open(segment(0), StandardOpenOption.READ)) {
+            ByteBuffer tail = ByteBuffer.allocate(SEGMENT_BYTES - end);
+            file.read(tail, end);
+            for (int i = 0; i < tail.capacity(); i++) {
+                assertEquals(0, tail.get(i), "non-zero byte at " + (end + i));
+            }
+        }
+
+        second.append(TaskChangeOp.CREATE, task(3L, "three"));
+        second.close();
+
+        TaskChangeJournal third = open(SEGMENT_BYTES);
+        List<TaskChangeRecord> records = third.read(0, 10).records();
+        assertEquals(3, records.size());
+        assertEquals(3L, records.get(2).taskId());
+    }
+
+    @Test
+    void readSkipsRecordsThatFailTheirCrc() throws Exception {
+        TaskChangeJournal journal = open(256);
+        long offset = 0;
+        for (long id = 1; id <= 12; id++) {
+            long at = journal.append(TaskChangeOp.CREATE, task(id, "task " + id));
+            if (id == 2) {
+                offset = at;
+            }
+        }
+
+        // Flip a body byte of the second record, which sits in the first segment
+        try (FileChannel file = FileChannel.open(segment(0), StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer b = ByteBuffer.allocate(1);
+            file.read(b, offset + 9);
+            file.write(ByteBuffer.wrap(new byte[] {(byte) (b.get(0) ^ 0xFF)}), offset + 9);
+        }
+
+        List<TaskChangeRecord> records = journal.read(0, 100).records();
+        assertEquals(1L, records.get(0).taskId());
+        assertTrue(records.size() > 1);
+        for (TaskChangeRecord r : records.subList(1, records.size())) {
+            assertTrue(r.offset() >= 256, "corrupt segment was not skipped");
+        }
+    }
+
+    @Test
+    void refusesToOpenWithDifferentSegmentSize() throws Exception {
+        TaskChangeJournal first = open(SEGMENT_BYTES);
+        first.append(TaskChangeOp.CREATE, task(1L, "one"));
+        first.close();
+
+        assertThrows(IllegalStateException.class, () -> open(SEGMENT_BYTES * 2));
+        assertEquals(1, open(SEGMENT_BYTES).read(0, 10).records().size());
+    }
+
+    @Test
+    void batchAppendsWaitForOneFsync() throws Exception {
+        TaskChangeJournal journal = open(64 * 1024, 50);
+        List<Task> tasks = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            tasks.add(task(id, "task " + id));
+        }
+
+        long start = System.currentTimeMillis();
+        assertEquals(100, journal.appendAll(TaskChangeOp.MOVE, tasks));
+        assertEquals(100, journal.appendRemovals(TaskChangeOp.ARCHIVE, tasks));
+        long elapsed = System.currentTimeMillis() - start;
+
+        // Waiting per record would take at least 200 flush intervals (10s)
+        assertTrue(elapsed < 2000, "batch appends took " + elapsed + "ms");
+
+        // Both batches are durable, so readers see all of them
+        List<TaskChangeRecord> records = journal.read(0, 500).records();
+        assertEquals(200, records.size());
+        assertEquals(TaskChangeOp.MOVE, records.get(0).op());
+        assertEquals(0L, records.get(0).version());
+        assertEquals("task 1", records.get(0).title());
+        TaskChangeRecord archived = records.get(199);
+        assertEquals(TaskChangeOp.ARCHIVE, archived.op());
+        assertEquals(100L, archived.taskId());
+        assertEquals(1L, archived.version());
+        assertNull(archived.title());
+    }
+
+    private TaskChangeJournal open(int segmentBytes) throws IOException {
+        return open(segmentBytes, 1);
+    }
+
+    private TaskChangeJournal open(int segmentBytes, long flushIntervalMillis) throws IOException {
+        TaskChangeJournal journal = new TaskChangeJournal();
+        ReflectionTestUtils.setField(journal, "enabled", true);
+        ReflectionTestUtils.setField(journal, "dir", dir.toString());
+        ReflectionTestUtils.setField(journal, "segmentBytes", segmentBytes);
+        ReflectionTestUtils.setField(journal, "flushIntervalMillis", flushIntervalMillis);
+        ReflectionTestUtils.setField(journal, "retentionHours", 168L);
+        ReflectionTestUtils.setField(journal, "syncWrites", true);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+
+    private Path segment(long base) {
+        return dir.resolve(String.format("%020d.seg", base));
+    }
+
+    private static Task task(Long id, String title) {
+        Task task = new Task(title, "ana@example.com");
+        task.setId(id);
+        task.setVersion(0L);
+        return task;
+    }
+}
@@ -0,0 +1,105 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HierarchicalTimingWheelTest {
+
+    private static final long TICK = 10;
+
+    @Test
+    void expiresOnTheDeadlineTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 3, 0);
+        assertTrue(wheel.add(50, "a"));
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(49, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(50, fired::add);
+        assertEquals(List.of("a"), fired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void deadlineBetweenTicksRoundsUp() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 3, 0);
+        wheel.add(41, "a");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(40, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(50, fired::add);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void pastDeadlineExpiresOnNextTick() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 3, 1000);
+        wheel.add(0, "overdue");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(1000, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(1010, fired::add);
+        assertEquals(List.of("overdue"), fired);
+    }
+
+    @Test
+    void rejectsDeadlinesBeyondTheSpan() {
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 2, 0);
+        assertEquals(TICK * 64 * 64, wheel.spanMillis());
+        assertFalse(wheel.add(wheel.spanMillis(), "too far"));
+        assertTrue(wheel.add(wheel.spanMillis() - TICK, "last slot"));
+        assertEquals(1, wheel.size());
+    }
+
+    @Test
+    void cascadesAcrossLevelTwoWrap() {
+        // One tick before the level-2 boundary (64 * 64 ticks): the deadline
+        // differs in the level-2 group and has to cascade through levels 2, 1, 0.
+        long start = (64 * 64 - 1) * TICK;
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(TICK, 3, start);
+        long deadline = (64 * 64 + 64 + 5) * TICK;
+        wheel.add(deadline, "a");
+        List<String> fired = new ArrayList<>();
+
+        wheel.advance(deadline - TICK, fired::add);
+        assertTrue(fired.isEmpty());
+        wheel.advance(deadline, fired::add);
+        assertEquals(List.of("a"), fired);
+    }
+
+    @Test
+    void firesInDeadlineOrderAndAllowsReAddFromCallback() {
+        HierarchicalTimingWheel<Long> wheel = new HierarchicalTimingWheel<>(TICK, 3, 0);
+        Random random = new Random(7);
+        List<Long> deadlines = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            long deadline = TICK * (1 + random.nextInt(100_000));
+            deadlines.add(deadline);
+            wheel.add(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        boolean[] readded = {false};
+        wheel.advance(TICK * 100_000, deadline -> {
+            fired.add(deadline);
+            if (!readded[0]) {
+                readded[0] = true;
+                wheel.add(TICK * 100_001, -1L);
+            }
+        });
+
+        deadlines.sort(null);
+        assertEquals(deadlines, fired);
+        assertEquals(1, wheel.size());
+        wheel.advance(TICK * 100_001, fired::add);
+        assertEquals(Long.valueOf(-1), fired.get(fired.size() - 1));
+        assertEquals(0, wheel.size());
+    }
+}
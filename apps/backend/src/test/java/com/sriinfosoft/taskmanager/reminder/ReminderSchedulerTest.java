@@ -0,0 +1,133 @@
+package com.sriinfosoft.taskmanager.reminder;
+
+import com.sriinfosoft.taskmanager.model.Task;
+import com.sriinfosoft.taskmanager.repository.TaskRepository;
+import com.sriinfosoft.taskmanager.service.TaskReadCoalescer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ReminderSchedulerTest {
+
+    private final List<Reminder> delivered = new CopyOnWriteArrayList<>();
+    private ReminderScheduler scheduler;
+
+    @AfterEach
+    void stop() {
+        if (scheduler != null) {
+            scheduler.stop();
+        }
+    }
+
+    @Test
+    void editsInsideTheWindowFireOnce() throws Exception {
+        start(delivered::add);
+        Task task = task(LocalDateTime.now().plusSeconds(1).truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+
+        // Create, then two title-only edits: each update calls schedule() again
+        scheduler.schedule(task);
+        task.setTitle("edited once");
+        scheduler.schedule(task);
+        task.setTitle("edited twice");
+        scheduler.schedule(task);
+
+        waitUntil(() -> !delivered.isEmpty(), 5000);
+        Thread.sleep(500);
+        assertEquals(1, delivered.size());
+        assertEquals(task.getDueAt(), delivered.get(0).dueAt());
+    }
+
+    @Test
+    void rescheduledTaskFiresOnlyAtTheNewTime() throws Exception {
+        start(delivered::add);
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Task task = task(now.plusSeconds(30));
+        scheduler.schedule(task);
+        task.setDueAt(now.plusSeconds(2));
+        scheduler.schedule(task);
+
+        waitUntil(() -> !delivered.isEmpty(), 5000);
+        Thread.sleep(500);
+        assertEquals(1, delivered.size());
+        assertEquals(now.plusSeconds(2), delivered.get(0).dueAt());
+    }
+
+    @Test
+    void failedDeliveryIsRetriedOnce() throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        start(reminder -> {
+            if (attempts.incrementAndGet() == 1) {
+                throw new IllegalStateException("webhook down");
+            }
+            delivered.add(reminder);
+        });
+        Task task = task(LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1));
+        scheduler.schedule(task);
+        scheduler.schedule(task);
+
+        waitUntil(() -> !delivered.isEmpty(), 5000);
+        Thread.sleep(500);
+        assertEquals(2, attempts.get());
+        assertEquals(1, delivered.size());
+    }
+
+    @Test
+    void slowDeliveryDoesNotStallOtherReminders() throws Exception {
+        start(reminder -> {
+            if (reminder.taskId() == 1L) {
+                Thread.sleep(3000); // a webhook timing out
+            }
+            delivered.add(reminder);
+        });
+        LocalDateTime dueAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS).plusSeconds(1);
+        Task slow = task(dueAt);
+        Task fast = task(dueAt.plusSeconds(1));
+        fast.setId(2L);
+        scheduler.schedule(slow);
+        scheduler.schedule(fast);
+
+        waitUntil(() -> !delivered.isEmpty(), 5000);
+        assertEquals(2L, (long) delivered.get(0).taskId());
+    }
+
+    private void start(ReminderSink sink) throws InterruptedException {
+        // The mocked repository has no pending reminders and marks nothing
+        scheduler = new ReminderScheduler(mock(TaskRepository.class), sink, new TaskReadCoalescer());
+        ReflectionTestUtils.setField(scheduler, "tickMillis", 10L);
+        ReflectionTestUtils.setField(scheduler, "horizonMillis", 60_000L);
+        ReflectionTestUtils.setField(scheduler, "refillIntervalMillis", 60_000L);
+        ReflectionTestUtils.setField(scheduler, "refillBatchSize", 100);
+        ReflectionTestUtils.setField(scheduler, "retryDelayMillis", 50L);
+        ReflectionTestUtils.setField(scheduler, "deliveryThreads", 2);
+        ReflectionTestUtils.setField(scheduler, "markIntervalMillis", 10L);
+        scheduler.start();
+        // schedule() only adds to the wheel once the first refill has loaded the window
+        waitUntil(() -> (long) ReflectionTestUtils.getField(scheduler, "loadedUntil") > 0, 5000);
+    }
+
+    private static Task task(LocalDateTime dueAt) {
+        Task task = new Task("remind me", "ana@example.com");
+        task.setId(1L);
+        task.setDueAt(dueAt);
+        return task;
+    }
+
+    private static void waitUntil(BooleanSupplier condition, long timeoutMillis)
+            throws InterruptedException {
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.currentTimeMillis() < deadline, "timed out waiting");
+            Thread.sleep(10);
+        }
+    }
+}
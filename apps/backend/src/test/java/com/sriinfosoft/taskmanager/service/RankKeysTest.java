@@ -0,0 +1,96 @@
+package com.sriinfosoft.taskmanager.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RankKeysTest {
+
+    @Test
+    void firstKeyOfEmptyList() {
+        assertEquals("100000", RankKeys.between(null, null));
+        assertEquals("100000", RankKeys.between("", null));
+    }
+
+    @Test
+    void appendStepsAtSameWidth() {
+        assertEquals("100001", RankKeys.between("100000", null));
+        assertEquals("10000z", RankKeys.after("10000y"));
+        assertEquals("100010", RankKeys.after("10000z"));
+        assertEquals("zz1", RankKeys.after("zz"));
+    }
+
+    @Test
+    void midpointOfDistantDigits() {
+        assertBetween("a", "c", RankKeys.between("a", "c"));
+        assertEquals("b", RankKeys.between("a", "c"));
+        assertBetween(null, "100000", RankKeys.between(null, "100000"));
+    }
+
+    @Test
+    void adjacentDigitsGrowTheKey() {
+        assertEquals("0ii", RankKeys.between("0i", "0j"));
+        assertBetween("a", "b", RankKeys.between("a", "b"));
+        assertBetween("az", "b", RankKeys.between("az", "b"));
+        assertBetween("a", "a1", RankKeys.between("a", "a1"));
+    }
+
+    @Test
+    void noKeyBetweenKeyAndItsZeroExtension() {
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("a", "a0"));
+    }
+
+    @Test
+    void rejectsOutOfOrderAndEqualKeys() {
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("b", "a"));
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("a", "a"));
+    }
+
+    @Test
+    void rejectsInvalidCharacters() {
+        assertThrows(IllegalArgumentException.class, () -> RankKeys.between("A", "b"));
+    }
+
+    @Test
+    void spreadIsSortedAndEqualWidth() {
+        List<String> keys = RankKeys.spread(1000);
+        assertEquals(1000, keys.size());
+        int width = keys.get(0).length();
+        for (int i = 0; i < keys.size(); i++) {
+            assertEquals(width, keys.get(i).length());
+            if (i > 0) {
+                assertTrue(keys.get(i - 1).compareTo(keys.get(i)) < 0);
+            }
+        }
+        // Room left at both ends
+        assertBetween(null, keys.get(0), RankKeys.between(null, keys.get(0)));
+        assertBetween(keys.get(999), null, RankKeys.between(keys.get(999), null));
+    }
+
+    @Test
+    void randomInsertsKeepOrder() {
+        Random random = new Random(42);
+        List<String> keys = new ArrayList<>(RankKeys.spread(10));
+        for (int n = 0; n < 5000; n++) {
+            int at = random.nextInt(keys.size() + 1);
+            String lo = at == 0 ? null : keys.get(at - 1);
+            String hi = at == keys.size() ? null : keys.get(at);
+            String key = RankKeys.between(lo, hi);
+            assertBetween(lo, hi, key);
+            keys.add(at, key);
+        }
+    }
+
+    private static void assertBetween(String lo, String hi, String key) {
+        if (lo != null) {
+            assertTrue(lo.compareTo(key) < 0, () -> "'" + key + "' not after '" + lo + "'");
+        }
+        if (hi != null) {
+            assertTrue(key.compareTo(hi) < 0, () -> "'" + key + "' not before '" + hi + "'");
+        }
+    }
+}
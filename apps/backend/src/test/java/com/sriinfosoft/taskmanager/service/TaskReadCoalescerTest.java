@@ -0,0 +1,156 @@
+package com.sriinfosoft.taskmanager.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TaskReadCoalescerTest {
+
+    private static final String EMAIL = "ana@example.com";
+    private static final int JOINERS = 8;
+
+    private final TaskReadCoalescer coalescer = new TaskReadCoalescer();
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final AtomicInteger loads = new AtomicInteger();
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @AfterEach
+    void shutdown() {
+        release.countDown();
+        pool.shutdownNow();
+    }
+
+    @Test
+    void joinersShareOneLoaderCall() throws Exception {
+        byte[] body = {1, 2, 3};
+        List<Future<byte[]>> reads = startReads(() -> {
+            loads.incrementAndGet();
+            release.await();
+            return body;
+        });
+
+        release.countDown();
+        for (Future<byte[]> read : reads) {
+            assertSame(body, read.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void fenceMakesTheNextReaderStartAFreshFlight() throws Exception {
+        Future<byte[]> stale = pool.submit(() -> coalescer.read(EMAIL, "list", () -> {
+            loads.incrementAndGet();
+            release.await();
+            return new byte[] {0};
+        }));
+        waitForLoads(1);
+
+        coalescer.fence(EMAIL);
+
+        // Runs its own loader instead of waiting on the blocked one
+        byte[] fresh = coalescer.read(EMAIL, "list", () -> {
+            loads.incrementAndGet();
+            return new byte[] {1};
+        });
+        assertArrayEquals(new byte[] {1}, fresh);
+        assertEquals(2, loads.get());
+        assertFalse(stale.isDone());
+
+        release.countDown();
+        assertArrayEquals(new byte[] {0}, stale.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void fenceLeavesOtherUsersFlightsAlone() throws Exception {
+        List<Future<byte[]>> reads = startReads(() -> {
+            loads.incrementAndGet();
+            release.await();
+            return new byte[] {0};
+        });
+
+        coalescer.fence("someone-else@example.com");
+        Future<byte[]> joiner = pool.submit(() -> coalescer.read(EMAIL, "list", () -> {
+            loads.incrementAndGet();
+            return new byte[] {1};
+        }));
+        Thread.sleep(200);
+
+        release.countDown();
+        assertArrayEquals(new byte[] {0}, joiner.get(5, TimeUnit.SECONDS));
+        for (Future<byte[]> read : reads) {
+            read.get(5, TimeUnit.SECONDS);
+        }
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    void leaderExceptionWakesEveryJoiner() throws Exception {
+        IOException failure = new IOException("db down");
+        List<Future<byte[]>> reads = startReads(() -> {
+            loads.incrementAndGet();
+            release.await();
+            throw failure;
+        });
+
+        release.countDown();
+        for (Future<byte[]> read : reads) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> read.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, loads.get());
+
+        // The failed flight is gone: the next read loads again
+        assertArrayEquals(new byte[] {1}, coalescer.read(EMAIL, "list", () -> new byte[] {1}));
+    }
+
+    @Test
+    void leaderErrorWakesEveryJoiner() throws Exception {
+        StackOverflowError failure = new StackOverflowError("serializer recursion");
+        List<Future<byte[]>> reads = startReads(() -> {
+            loads.incrementAndGet();
+            release.await();
+            throw failure;
+        });
+
+        release.countDown();
+        for (Future<byte[]> read : reads) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> read.get(5, TimeUnit.SECONDS));
+            assertSame(failure, e.getCause());
+        }
+        assertEquals(1, loads.get());
+    }
+
+    // One leader whose loader is running, plus JOINERS reads submitted while it is
+    private List<Future<byte[]>> startReads(Callable<byte[]> loader) throws Exception {
+        List<Future<byte[]>> reads = new ArrayList<>();
+        reads.add(pool.submit(() -> coalescer.read(EMAIL, "list", loader)));
+        waitForLoads(1);
+        for (int i = 0; i < JOINERS; i++) {
+            reads.add(pool.submit(() -> coalescer.read(EMAIL, "list", loader)));
+        }
+        // Joiners block in join(); give them time to get there before the leader finishes
+        Thread.sleep(200);
+        return reads;
+    }
+
+    private void waitForLoads(int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loads.get() < expected) {
+            assertTrue(System.currentTimeMillis() < deadline, "loader never started");
+            Thread.sleep(5);
+        }
+    }
+}